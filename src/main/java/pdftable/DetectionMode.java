@@ -0,0 +1,19 @@
+package pdftable;
+
+/**
+ * Engine used for determining table cells of a page.
+ */
+public enum DetectionMode {
+    /**
+     * Cells are found as contours of ruled table in rendered page image.
+     */
+    RASTER,
+    /**
+     * Cells are inferred from alignment of text, page is not rendered. Suitable for tables without rulings.
+     */
+    TEXT_ALIGNMENT,
+    /**
+     * Raster engine is used first, text alignment is used when no cell with text was found.
+     */
+    RASTER_WITH_TEXT_FALLBACK
+}
@@ -0,0 +1,166 @@
+package pdftable;
+
+import pdftable.models.ParsedTablePage;
+import pdftable.models.ParsedTablePage.ParsedTableRow;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-document sidecar index storing content hash and extraction result of each page.
+ * Used by {@link PdfTableReader#parsePdfTablePages(org.apache.pdfbox.pdmodel.PDDocument, ExtractionIndex)}
+ * to re-process only pages whose content changed since previous run.
+ */
+public class ExtractionIndex {
+
+    private static final int MAGIC = 0x50544958;
+    private static final int VERSION = 2;
+
+    private String settingsFingerprint;
+    // page content hash -> page parsed from such content
+    private Map<ByteBuffer, ParsedTablePage> pages = new LinkedHashMap<>();
+    private int reusedPages = 0;
+    private int parsedPages = 0;
+
+    /**
+     * Creates empty index.
+     */
+    public ExtractionIndex() {
+        this.settingsFingerprint = "";
+    }
+
+    /**
+     * Loads index from file. Returns empty index when file does not exist.
+     *
+     * @param path index file path
+     * @return loaded index
+     * @throws IOException when file exists but cannot be read
+     */
+    public static ExtractionIndex load(Path path) throws IOException {
+        ExtractionIndex index = new ExtractionIndex();
+        if (!Files.exists(path)) {
+            return index;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                // unknown format, start from scratch
+                return index;
+            }
+            index.settingsFingerprint = in.readUTF();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] hash = new byte[in.readInt()];
+                in.readFully(hash);
+                index.pages.put(ByteBuffer.wrap(hash), ParsedTablePage.readFrom(in));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Saves index to file. File is replaced atomically.
+     *
+     * @param path index file path
+     * @throws IOException when file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(settingsFingerprint);
+            out.writeInt(pages.size());
+            for (Map.Entry<ByteBuffer, ParsedTablePage> entry : pages.entrySet()) {
+                byte[] hash = entry.getKey().array();
+                out.writeInt(hash.length);
+                out.write(hash);
+                entry.getValue().writeTo(out);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return number of pages reused from index during last update
+     */
+    public int getReusedPageCount() {
+        return reusedPages;
+    }
+
+    /**
+     * @return number of pages parsed during last update
+     */
+    public int getParsedPageCount() {
+        return parsedPages;
+    }
+
+    /**
+     * @return number of pages stored in index
+     */
+    public int size() {
+        return pages.size();
+    }
+
+    /**
+     * Starts update with given settings. Stored results are discarded when they were produced with other settings.
+     *
+     * @param fingerprint extraction settings fingerprint
+     * @return stored results from previous run, keyed by page content hash
+     */
+    Map<ByteBuffer, ParsedTablePage> beginUpdate(String fingerprint) {
+        Map<ByteBuffer, ParsedTablePage> previous = fingerprint.equals(settingsFingerprint) ? pages : new HashMap<>();
+        settingsFingerprint = fingerprint;
+        pages = new LinkedHashMap<>();
+        reusedPages = 0;
+        parsedPages = 0;
+        return previous;
+    }
+
+    /**
+     * Records page result during update.
+     */
+    void put(byte[] hash, ParsedTablePage page, boolean reused) {
+        pages.put(ByteBuffer.wrap(hash), page);
+        if (reused) {
+            reusedPages++;
+        } else {
+            parsedPages++;
+        }
+    }
+
+    /**
+     * Creates copy of stored page with new page number, pages may move when pages are inserted or removed.
+     */
+    static ParsedTablePage renumber(ParsedTablePage page, int pageNumber) {
+        if (page.getPageNum() == pageNumber) {
+            return page;
+        }
+        ParsedTablePage out = new ParsedTablePage(pageNumber);
+        for (ParsedTableRow row : page.getRows()) {
+            List<Integer> cellIndexes = IntStream.range(0, row.getCells().size()).boxed().collect(Collectors.toList());
+            out.addRow(row.getCells(), row.copyCellBounds(cellIndexes), row.copyCellLayout(cellIndexes));
+        }
+        for (ParsedTablePage.ParsedTable table : page.getTables()) {
+            out.addTable(table.getGridRowCount(), table.getGridColumnCount());
+        }
+        if (page.hasPageBounds()) {
+            out.setPageBounds(page.getPageLeft(), page.getPageBottom(), page.getPageRight(), page.getPageTop());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,18 @@
+package pdftable;
+
+import pdftable.models.LogicalTable;
+
+import java.io.IOException;
+
+/**
+ * Receives logical tables as soon as they are closed by TableStitcher.
+ */
+@FunctionalInterface
+public interface LogicalTableConsumer {
+
+    /**
+     * @param table closed logical table
+     * @throws IOException when table cannot be consumed
+     */
+    void accept(LogicalTable table) throws IOException;
+}
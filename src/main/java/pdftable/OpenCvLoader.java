@@ -0,0 +1,60 @@
+package pdftable;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Core;
+
+/**
+ * Loads OpenCV native library exactly once, on first use of OpenCV based code.
+ * <p>
+ * OpenCV installed in the system (found on {@code java.library.path}) is preferred, otherwise natives bundled
+ * in {@code org.openpnp:opencv} jar are extracted to temporary directory and loaded.
+ * Code which does not use OpenCV (e.g. saving pages as PNG) never triggers loading.
+ */
+public class OpenCvLoader {
+
+    private static volatile boolean loaded = false;
+    private static volatile IllegalStateException failure = null;
+
+    private OpenCvLoader() {
+    }
+
+    /**
+     * Loads OpenCV native library unless it has already been loaded.
+     *
+     * @throws IllegalStateException when library cannot be loaded, repeated on each following call
+     */
+    public static void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (OpenCvLoader.class) {
+            if (loaded) {
+                return;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            try {
+                System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+            } catch (UnsatisfiedLinkError systemError) {
+                try {
+                    OpenCV.loadLocally();
+                } catch (Throwable bundledError) {
+                    failure = new IllegalStateException("Cannot load OpenCV native library " + Core.NATIVE_LIBRARY_NAME
+                            + ": not found on java.library.path (" + systemError.getMessage() + ")"
+                            + " and bundled org.openpnp natives cannot be loaded on "
+                            + System.getProperty("os.name") + "/" + System.getProperty("os.arch"), bundledError);
+                    throw failure;
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    /**
+     * @return true when OpenCV native library has been loaded
+     */
+    public static boolean isLoaded() {
+        return loaded;
+    }
+}
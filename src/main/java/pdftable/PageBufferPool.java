@@ -0,0 +1,34 @@
+package pdftable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Page buffers of threads parsing with the same reader, released by {@link PdfTableReader#close()}.
+ * Buffers of terminated threads are dropped together with their threads, native images are then freed
+ * on garbage collection.
+ */
+class PageBufferPool {
+
+    private final Map<Thread, PageBuffers> buffers = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * @return buffers of current thread
+     */
+    PageBuffers get() {
+        return buffers.computeIfAbsent(Thread.currentThread(), t -> new PageBuffers());
+    }
+
+    /**
+     * Releases buffers of all threads, they must not be in use. Buffers are allocated again when used afterwards.
+     */
+    void release() {
+        synchronized (buffers) {
+            for (PageBuffers threadBuffers : buffers.values()) {
+                threadBuffers.release();
+            }
+            buffers.clear();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package pdftable;
+
+import org.opencv.core.Mat;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Reusable page buffers: rendered page image, its gray pixels and OpenCV images used by table extraction.
+ * Buffers are reallocated only when page size changes, so consecutive pages of the same size are rendered
+ * and analyzed without allocating new full-page images.
+ * <p>
+ * Not thread-safe, instance must be used by single thread at a time. Native images are created lazily,
+ * creating instance does not load OpenCV.
+ */
+public class PageBuffers {
+
+    private BufferedImage image;
+    private byte[] grayPixels;
+    private int imageAllocations;
+
+    private Mat gray;
+    private Mat bit;
+    private Mat contourMask;
+    private Mat xored;
+    private Mat canny;
+    private Mat hierarchy;
+
+    /**
+     * Returns page image of given size, reusing previous one when size did not change.
+     * Content of reused image is not cleared.
+     *
+     * @param width  image width in pixels
+     * @param height image height in pixels
+     * @return RGB image
+     */
+    BufferedImage getImage(int width, int height) {
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            grayPixels = new byte[width * height];
+            imageAllocations++;
+        }
+        return image;
+    }
+
+    /**
+     * Converts page image obtained from {@link #getImage(int, int)} to grayscaled Mat held by this instance.
+     *
+     * @param bi page image
+     * @return grayscaled image, valid until next page
+     */
+    Mat toGrayscaleMat(BufferedImage bi) {
+        if (bi != image) {
+            throw new IllegalArgumentException("image does not belong to buffers");
+        }
+        OpenCvLoader.load();
+        gray = ensure(gray);
+        return Utils.rgbImage2GrayscaleMat(bi, grayPixels, gray);
+    }
+
+    Mat getBit() {
+        return bit = ensure(bit);
+    }
+
+    Mat getContourMask() {
+        return contourMask = ensure(contourMask);
+    }
+
+    Mat getXored() {
+        return xored = ensure(xored);
+    }
+
+    Mat getCanny() {
+        return canny = ensure(canny);
+    }
+
+    Mat getHierarchy() {
+        return hierarchy = ensure(hierarchy);
+    }
+
+    /**
+     * @return number of page images allocated so far
+     */
+    public int getImageAllocations() {
+        return imageAllocations;
+    }
+
+    /**
+     * Releases all buffers. Native memory is freed immediately instead of on garbage collection.
+     * Instance can still be used afterwards, buffers are allocated again.
+     */
+    public void release() {
+        image = null;
+        grayPixels = null;
+        gray = release(gray);
+        bit = release(bit);
+        contourMask = release(contourMask);
+        xored = release(xored);
+        canny = release(canny);
+        hierarchy = release(hierarchy);
+    }
+
+    private static Mat ensure(Mat mat) {
+        return mat == null ? new Mat() : mat;
+    }
+
+    private static Mat release(Mat mat) {
+        if (mat != null) {
+            mat.release();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,119 @@
+package pdftable;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes hash of everything that affects rendering and text of single page: page boxes, rotation,
+ * content streams, resources and annotations. Referenced objects are hashed recursively, except parent links
+ * which would pull in other pages.
+ */
+class PageContentHasher {
+
+    private static final COSName P = COSName.getPDFName("P");
+
+    private final MessageDigest digest;
+    private final Map<COSBase, Boolean> visited = new IdentityHashMap<>();
+    private final byte[] buffer = new byte[8192];
+
+    private PageContentHasher() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param page PDF page
+     * @return SHA-256 hash of page content
+     * @throws IOException when page streams cannot be read
+     */
+    static byte[] hash(PDPage page) throws IOException {
+        PageContentHasher hasher = new PageContentHasher();
+        hasher.update(page.getMediaBox());
+        hasher.update(page.getCropBox());
+        hasher.update("rotate:" + page.getRotation());
+        hasher.update(page.getCOSObject().getDictionaryObject(COSName.CONTENTS));
+        hasher.update(page.getResources() == null ? null : page.getResources().getCOSObject());
+        hasher.update(page.getCOSObject().getDictionaryObject(COSName.ANNOTS));
+        return hasher.digest.digest();
+    }
+
+    private void update(PDRectangle rectangle) {
+        update(rectangle == null ? "null" : rectangle.toString());
+    }
+
+    private void update(String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private void update(COSBase base) throws IOException {
+        if (base instanceof COSObject) {
+            base = ((COSObject) base).getObject();
+        }
+        if (base == null) {
+            update("null");
+            return;
+        }
+        if (base instanceof COSDictionary || base instanceof COSArray) {
+            if (visited.put(base, Boolean.TRUE) != null) {
+                update("visited");
+                return;
+            }
+        }
+
+        if (base instanceof COSStream) {
+            updateDictionary((COSDictionary) base);
+            update("stream");
+            try (InputStream in = ((COSStream) base).createRawInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        } else if (base instanceof COSDictionary) {
+            updateDictionary((COSDictionary) base);
+        } else if (base instanceof COSArray) {
+            update("[");
+            for (COSBase item : (COSArray) base) {
+                update(item);
+            }
+            update("]");
+        } else {
+            update(base.getClass().getSimpleName() + ":" + base.toString());
+        }
+    }
+
+    private void updateDictionary(COSDictionary dictionary) throws IOException {
+        List<COSName> keys = new ArrayList<>(dictionary.keySet());
+        Collections.sort(keys);
+        update("<<");
+        for (COSName key : keys) {
+            if (COSName.PARENT.equals(key) || P.equals(key)) {
+                continue;
+            }
+            update(key.getName());
+            update(dictionary.getItem(key));
+        }
+        update(">>");
+    }
+}
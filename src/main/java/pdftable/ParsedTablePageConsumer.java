@@ -0,0 +1,18 @@
+package pdftable;
+
+import pdftable.models.ParsedTablePage;
+
+import java.io.IOException;
+
+/**
+ * Receives parsed pages one by one as soon as they are parsed.
+ */
+@FunctionalInterface
+public interface ParsedTablePageConsumer {
+
+    /**
+     * @param page parsed page
+     * @throws IOException when page cannot be consumed; stops parsing
+     */
+    void accept(ParsedTablePage page) throws IOException;
+}
@@ -3,57 +3,116 @@ package pdftable;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.RenderDestination;
 import org.apache.pdfbox.text.PDFTextStripperByArea;
+import org.apache.pdfbox.text.TextPosition;
 import org.apache.pdfbox.tools.imageio.ImageIOUtil;
-import org.opencv.core.Core;
+import org.opencv.core.Mat;
 import org.opencv.core.Rect;
+import pdftable.debug.DebugPageCapture;
 import pdftable.models.ParsedTablePage;
+import pdftable.models.ParsedTablePage.ParsedTableRow;
+import pdftable.trace.PipelineEvent;
+import pdftable.trace.PipelineEvents;
+import pdftable.trace.Stage;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
-import static pdftable.Utils.bufferedImage2GrayscaleMat;
 
+/**
+ * Reads tables from PDF documents.
+ * <p>
+ * Reader is immutable and thread-safe, single instance can be shared by all threads. Settings can be overridden
+ * for single call with {@link #withSettings(PdfTableSettings)}, which returns lightweight reader with other settings.
+ * PDFBox documents are not thread-safe, so all access to the same document (page rendering, content stream parsing
+ * for text extraction and page hashing) is serialized on the document. Cell detection and assignment of parsed text
+ * to cells run concurrently.
+ * <p>
+ * Pages are rendered into {@link PageBuffers} of the calling thread (see
+ * {@link PdfTableSettings.PdfTableSettingsBuilder#setRenderBufferPooling(boolean)}), or into buffers supplied by the caller.
+ * Buffers of calling threads are owned by the reader and released by {@link #close()}.
+ */
+public class PdfTableReader implements Closeable {
 
-public class PdfTableReader {
+    // maximal gap between cells of the same table, in PDF points
+    private static final double CELL_ADJACENCY_TOLERANCE = 3;
 
-    private TableExtractor extractor;
-    private PdfTableSettings settings;
+    private final TableExtractor extractor;
+    private final TextAlignmentExtractor textExtractor;
+    private final PdfTableSettings settings;
+    private final PageBufferPool threadBuffers;
 
-    static {
-        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    public PdfTableReader(PdfTableSettings settings) {
+        this(settings, new PageBufferPool());
     }
 
-    public PdfTableReader(PdfTableSettings settings) {
+    private PdfTableReader(PdfTableSettings settings, PageBufferPool threadBuffers) {
         this.settings = settings;
         this.extractor = new TableExtractor(settings);
+        this.textExtractor = new TextAlignmentExtractor(settings);
+        this.threadBuffers = threadBuffers;
     }
 
     public PdfTableReader() {
         this(new PdfTableSettings());
     }
 
+    /**
+     * Returns reader using given settings, e.g. for overriding settings of single call:
+     * {@code reader.withSettings(PdfTableSettings.getBuilder(reader.getSettings()).setPdfRenderingDpi(200).build())}.
+     * This reader is not modified, returned reader shares its thread buffers.
+     *
+     * @param settings settings of returned reader
+     * @return reader with given settings
+     */
+    public PdfTableReader withSettings(PdfTableSettings settings) {
+        return settings == this.settings ? this : new PdfTableReader(settings, threadBuffers);
+    }
+
+    /**
+     * Releases page buffers of all threads which parsed with this reader (or with readers returned by
+     * {@link #withSettings(PdfTableSettings)}). Must not be called while pages are being parsed.
+     * Reader can still be used afterwards, buffers are allocated again.
+     */
+    @Override
+    public void close() {
+        threadBuffers.release();
+    }
+
+    public PdfTableSettings getSettings() {
+        return settings;
+    }
+
     /**
      * Renders PDF page with DPI specified in settings and saves it in specified directory.
      *
+     * @param document  PDF document instance
      * @param renderer  PDF renderer instance
      * @param page      page number
      * @param outputDir output directory
      * @throws IOException
      */
-    private void savePdfPageAsPNG(PDFRenderer renderer, int page, Path outputDir) throws IOException {
-        BufferedImage bim;
-        synchronized (this) {
-            bim = renderer.renderImageWithDPI(page, settings.getPdfRenderingDpi(), ImageType.RGB);
-        }
+    private void savePdfPageAsPNG(PDDocument document, PDFRenderer renderer, int page, Path outputDir) throws IOException {
+        BufferedImage bim = renderPage(document, renderer, page);
         Path outPath = outputDir.resolve(Paths.get("page_" + (page + 1) + ".png"));
         ImageIOUtil.writeImage(bim, outPath.toString(), settings.getPdfRenderingDpi());
 
@@ -71,7 +130,7 @@ public class PdfTableReader {
     public void savePdfPagesAsPNG(PDDocument document, int startPage, int endPage, Path outputDir) throws IOException {
         PDFRenderer pdfRenderer = new PDFRenderer(document);
         for (int page = startPage - 1; page < endPage; ++page) {
-            savePdfPageAsPNG(pdfRenderer, page, outputDir);
+            savePdfPageAsPNG(document, pdfRenderer, page, outputDir);
         }
     }
 
@@ -88,16 +147,268 @@ public class PdfTableReader {
     }
 
     /**
-     * Parses single PDF page and returns list of rows containing cell texts.
+     * Renders PDF page with DPI specified in settings.
      *
-     * @param bi     PDF page in image format
-     * @param pdPage PDF page in PDPage format
+     * @param document rendered document, used as lock
+     * @param renderer PDF renderer instance
+     * @param page     page index (first page == 0)
+     * @return page image
+     * @throws IOException
+     */
+    private BufferedImage renderPage(PDDocument document, PDFRenderer renderer, int page) throws IOException {
+        PipelineEvent event = PipelineEvents.begin(Stage.RENDER, page + 1).setDpi(settings.getPdfRenderingDpi());
+        BufferedImage bi;
+        synchronized (document) {
+            bi = renderer.renderImageWithDPI(page, settings.getPdfRenderingDpi(), ImageType.RGB);
+        }
+        event.setImageSize(bi.getWidth(), bi.getHeight()).close();
+        return bi;
+    }
+
+    /**
+     * Renders PDF page with DPI specified in settings into page buffers. Image size and transformation
+     * are the same as those of {@link PDFRenderer#renderImageWithDPI(int, float, ImageType)}.
+     *
+     * @param document rendered document, used as lock
+     * @param renderer PDF renderer instance
+     * @param page     page index (first page == 0)
+     * @param buffers  page buffers
+     * @return page image owned by buffers
+     * @throws IOException
+     */
+    private BufferedImage renderPage(PDDocument document, PDFRenderer renderer, int page, PageBuffers buffers) throws IOException {
+        PipelineEvent event = PipelineEvents.begin(Stage.RENDER, page + 1).setDpi(settings.getPdfRenderingDpi());
+        BufferedImage bi;
+        synchronized (document) {
+            PDPage pdPage = document.getPage(page);
+            float scale = settings.getPdfRenderingDpi() / 72f;
+            int width = (int) Math.max(Math.floor(pdPage.getCropBox().getWidth() * scale), 1);
+            int height = (int) Math.max(Math.floor(pdPage.getCropBox().getHeight() * scale), 1);
+            int rotation = pdPage.getRotation();
+            bi = rotation == 90 || rotation == 270 ? buffers.getImage(height, width) : buffers.getImage(width, height);
+            Graphics2D graphics = bi.createGraphics();
+            graphics.setBackground(Color.WHITE);
+            // reused image still holds previous page
+            graphics.clearRect(0, 0, bi.getWidth(), bi.getHeight());
+            renderer.renderPageToGraphics(page, graphics, scale, scale, RenderDestination.EXPORT);
+            graphics.dispose();
+        }
+        event.setImageSize(bi.getWidth(), bi.getHeight()).close();
+        return bi;
+    }
+
+    /**
+     * Renders area of PDF page with DPI specified in settings into page buffers.
+     *
+     * @param document rendered document, used as lock
+     * @param renderer PDF renderer instance
+     * @param page     page index (first page == 0)
+     * @param area     rendered area in pixels of page image rendered by {@link #renderPage(PDDocument, PDFRenderer, int, PageBuffers)}
+     * @param buffers  page buffers
+     * @return area image owned by buffers
+     * @throws IOException
+     */
+    private BufferedImage renderRegion(PDDocument document, PDFRenderer renderer, int page, Rect area, PageBuffers buffers) throws IOException {
+        PipelineEvent event = PipelineEvents.begin(Stage.RENDER, page + 1).setDpi(settings.getPdfRenderingDpi());
+        BufferedImage bi = buffers.getImage(area.width, area.height);
+        Graphics2D graphics = bi.createGraphics();
+        graphics.setBackground(Color.WHITE);
+        graphics.clearRect(0, 0, area.width, area.height);
+        graphics.translate(-area.x, -area.y);
+        float scale = settings.getPdfRenderingDpi() / 72f;
+        synchronized (document) {
+            renderer.renderPageToGraphics(page, graphics, scale, scale, RenderDestination.EXPORT);
+        }
+        graphics.dispose();
+        event.setImageSize(area.width, area.height).close();
+        return bi;
+    }
+
+    private Mat toGrayscaleMat(BufferedImage bi, int pageNumber, PageBuffers buffers) {
+        PipelineEvent event = PipelineEvents.begin(Stage.MAT_CONVERSION, pageNumber).setImageSize(bi.getWidth(), bi.getHeight());
+        Mat mat = buffers.toGrayscaleMat(bi);
+        event.close();
+        return mat;
+    }
+
+    /**
+     * Parses single PDF page with detection engine from settings and returns list of rows containing cell texts.
+     *
+     * @param document PDF document instance
+     * @param renderer PDF renderer instance
+     * @param page     page index (first page == 0)
+     * @param buffers  page buffers, not used by text alignment engine
+     * @return parsed page
+     * @throws IOException
+     */
+    private ParsedTablePage parsePdfTablePage(PDDocument document, PDFRenderer renderer, int page, PageBuffers buffers) throws IOException {
+        return parsePdfTablePage(document, renderer, page, null, buffers);
+    }
+
+    /**
+     * Parses regions of single PDF page with detection engine from settings.
+     *
+     * @param document PDF document instance
+     * @param renderer PDF renderer instance
+     * @param page     page index (first page == 0)
+     * @param regions  regions of displayed page, see {@link #toDisplayRegion(PDPage, Rectangle2D)}, null for whole page
+     * @param buffers  page buffers, not used by text alignment engine
      * @return parsed page
      * @throws IOException
      */
-    private ParsedTablePage parsePdfTablePage(BufferedImage bi, PDPage pdPage, int pageNumber) throws IOException {
-        List<Rect> rectangles = extractor.getTableBoundingRectangles(bufferedImage2GrayscaleMat(bi));
-        return parsePageByRectangles(pdPage, rectangles, pageNumber);
+    private ParsedTablePage parsePdfTablePage(PDDocument document, PDFRenderer renderer, int page, List<Rectangle2D> regions,
+                                              PageBuffers buffers) throws IOException {
+        if (settings.getDetectionMode() == DetectionMode.TEXT_ALIGNMENT) {
+            return parsePdfTablePageByTextAlignment(document, page, regions);
+        }
+        ParsedTablePage parsed = parsePdfTablePageByRaster(document, renderer, page, regions, buffers);
+        if (settings.getDetectionMode() == DetectionMode.RASTER_WITH_TEXT_FALLBACK && !hasText(parsed)) {
+            return parsePdfTablePageByTextAlignment(document, page, regions);
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses single PDF page using cells inferred from text alignment. Page content is parsed only once,
+     * recorded text positions are used both for cell detection and for cell texts.
+     *
+     * @param document   PDF document instance, used as lock
+     * @param page       page index (first page == 0)
+     * @param regions    regions of displayed page, only text inside them is used for cell detection, null for whole page
+     * @return parsed page
+     * @throws IOException
+     */
+    private ParsedTablePage parsePdfTablePageByTextAlignment(PDDocument document, int page, List<Rectangle2D> regions) throws IOException {
+        int pageNumber = page + 1;
+        PipelineEvent event = PipelineEvents.begin(Stage.TEXT_LAYOUT, pageNumber);
+        PDPage pdPage;
+        List<TextPosition> positions;
+        synchronized (document) {
+            pdPage = document.getPage(page);
+            positions = new TextPositionRecorder().record(pdPage);
+        }
+        List<TextPosition> detected = positions;
+        if (regions != null) {
+            detected = new ArrayList<>();
+            for (TextPosition position : positions) {
+                for (Rectangle2D region : regions) {
+                    if (region.contains(position.getX(), position.getY())) {
+                        detected.add(position);
+                        break;
+                    }
+                }
+            }
+        }
+        List<Rect> rectangles = textExtractor.getTableBoundingRectangles(detected);
+        event.setCellCount(rectangles.size()).close();
+        return parsePageByRectangles(document, pdPage, rectangles, pageNumber, positions);
+    }
+
+    private static boolean hasText(ParsedTablePage page) {
+        for (ParsedTablePage.ParsedTableRow row : page.getRows()) {
+            for (String cell : row.getCells()) {
+                if (!cell.trim().isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Renders and parses single PDF page and returns list of rows containing cell texts.
+     *
+     * @param document   PDF document instance
+     * @param renderer   PDF renderer instance
+     * @param page       page index (first page == 0)
+     * @param regions    regions of displayed page rendered and analyzed separately, null for whole page
+     * @param buffers    page buffers
+     * @return parsed page
+     * @throws IOException
+     */
+    private ParsedTablePage parsePdfTablePageByRaster(PDDocument document, PDFRenderer renderer, int page, List<Rectangle2D> regions,
+                                                      PageBuffers buffers) throws IOException {
+        int pageNumber = page + 1;
+        PDPage pdPage;
+        synchronized (document) {
+            pdPage = document.getPage(page);
+        }
+        // copies of stage images are made only when they may be written
+        boolean captured = settings.isDebugPageCaptured(pageNumber);
+        long start = System.currentTimeMillis();
+        List<DebugPageCapture> captures = new ArrayList<>();
+        try {
+            List<Rect> rectangles;
+            if (regions == null) {
+                DebugPageCapture capture = captured ? newDebugPageCapture(pageNumber, captures, "") : null;
+                Mat gray = toGrayscaleMat(renderPage(document, renderer, page, buffers), pageNumber, buffers);
+                rectangles = extractor.getTableBoundingRectangles(gray, capture, pageNumber, buffers);
+            } else {
+                float scale = (float) settings.getPdfRenderingDpi() / settings.getDefaultPdfDpi();
+                rectangles = new ArrayList<>();
+                for (int i = 0; i < regions.size(); i++) {
+                    Rectangle2D region = regions.get(i);
+                    // region position in pixels of full page image
+                    Rect area = new Rect((int) Math.floor(region.getMinX() * scale), (int) Math.floor(region.getMinY() * scale),
+                            (int) Math.max(Math.ceil(region.getWidth() * scale), 1), (int) Math.max(Math.ceil(region.getHeight() * scale), 1));
+                    DebugPageCapture capture = captured ? newDebugPageCapture(pageNumber, captures, "_region_" + (i + 1)) : null;
+                    Mat gray = toGrayscaleMat(renderRegion(document, renderer, page, area, buffers), pageNumber, buffers);
+                    for (Rect r : extractor.getTableBoundingRectangles(gray, capture, pageNumber, buffers)) {
+                        rectangles.add(new Rect(r.x + area.x, r.y + area.y, r.width, r.height));
+                    }
+                }
+            }
+            ParsedTablePage parsed = parsePageByRectangles(document, pdPage, rectangles, pageNumber);
+            if (captured && settings.isDebugPageSampled(pageNumber, System.currentTimeMillis() - start)) {
+                for (DebugPageCapture capture : captures) {
+                    capture.writeTo(settings.getDebugImageSink());
+                }
+            }
+            return parsed;
+        } finally {
+            // images of pages which were not sampled
+            for (DebugPageCapture capture : captures) {
+                capture.release();
+            }
+        }
+    }
+
+    private DebugPageCapture newDebugPageCapture(int pageNumber, List<DebugPageCapture> captures, String suffix) {
+        DebugPageCapture capture = new DebugPageCapture(settings.getDebugFileOutputDir(), getDebugFilenamePrefix(pageNumber) + suffix);
+        captures.add(capture);
+        return capture;
+    }
+
+    /**
+     * Runs action with buffers of current thread, or with new buffers released afterwards when pooling is disabled.
+     */
+    private <T> T withPageBuffers(PageBuffersAction<T> action) throws IOException {
+        if (settings.hasRenderBufferPooling()) {
+            return action.apply(threadBuffers.get());
+        }
+        PageBuffers buffers = new PageBuffers();
+        try {
+            return action.apply(buffers);
+        } finally {
+            buffers.release();
+        }
+    }
+
+    private interface PageBuffersAction<T> {
+        T apply(PageBuffers buffers) throws IOException;
+    }
+
+    /**
+     * Builds debug images filename prefix for page parsed with debug images enabled.
+     *
+     * @param pageNumber page number (first page == 1)
+     * @return filename prefix
+     */
+    private String getDebugFilenamePrefix(int pageNumber) {
+        if (settings.getDebugFilename() == null) {
+            return "page_" + pageNumber;
+        }
+        return settings.getDebugFilename() + "_page_" + pageNumber;
     }
 
     /**
@@ -111,14 +422,78 @@ public class PdfTableReader {
      */
     public List<ParsedTablePage> parsePdfTablePages(PDDocument document, int startPage, int endPage) throws IOException {
         List<ParsedTablePage> out = new ArrayList<>();
+        parsePdfTablePages(document, startPage, endPage, out::add);
+        return out;
+    }
+
+    /**
+     * Parses range of PDF pages and passes each parsed page to consumer as soon as it is parsed,
+     * so that parsed pages do not have to be kept in memory.
+     *
+     * @param document  PDF document instance
+     * @param startPage first page in range to parse (first page == 1)
+     * @param endPage   last page in range
+     * @param consumer  parsed pages consumer, called in page order
+     * @throws IOException
+     */
+    public void parsePdfTablePages(PDDocument document, int startPage, int endPage, ParsedTablePageConsumer consumer) throws IOException {
+        PDFRenderer renderer = new PDFRenderer(document);
+        for (int page = startPage - 1; page < endPage; ++page) {
+            final int index = page;
+            consumer.accept(withPageBuffers(buffers -> parsePdfTablePage(document, renderer, index, buffers)));
+        }
+    }
+
+    /**
+     * Parses range of PDF pages using buffers supplied by caller, regardless of pooling settings.
+     * Buffers are reused by all pages of the same size and are not released.
+     *
+     * @param document  PDF document instance
+     * @param startPage first page in range to parse (first page == 1)
+     * @param endPage   last page in range
+     * @param buffers   page buffers, must not be used by other threads during this call
+     * @param consumer  parsed pages consumer, called in page order
+     * @throws IOException
+     */
+    public void parsePdfTablePages(PDDocument document, int startPage, int endPage, PageBuffers buffers, ParsedTablePageConsumer consumer) throws IOException {
         PDFRenderer renderer = new PDFRenderer(document);
         for (int page = startPage - 1; page < endPage; ++page) {
-            BufferedImage bi;
-            synchronized (this) {
-                bi = renderer.renderImageWithDPI(page, settings.getPdfRenderingDpi(), ImageType.RGB);
+            consumer.accept(parsePdfTablePage(document, renderer, page, buffers));
+        }
+    }
+
+    /**
+     * Parses all pages of PDF document, reusing results stored in index for pages whose content did not change.
+     * Only new and changed pages are rendered and parsed. Index is updated with current results;
+     * it is up to the caller to load it before and save it afterwards.
+     *
+     * @param document PDF document instance
+     * @param index    extraction index from previous run (or empty index)
+     * @return List of pages
+     * @throws IOException
+     */
+    public List<ParsedTablePage> parsePdfTablePages(PDDocument document, ExtractionIndex index) throws IOException {
+        Map<ByteBuffer, ParsedTablePage> previous = index.beginUpdate(settings.getExtractionFingerprint());
+        Map<ByteBuffer, ParsedTablePage> current = new HashMap<>();
+        List<ParsedTablePage> out = new ArrayList<>();
+        PDFRenderer renderer = new PDFRenderer(document);
+        for (int page = 0; page < document.getNumberOfPages(); ++page) {
+            byte[] hash;
+            synchronized (document) {
+                hash = PageContentHasher.hash(document.getPage(page));
+            }
+            ByteBuffer key = ByteBuffer.wrap(hash);
+            ParsedTablePage stored = current.containsKey(key) ? current.get(key) : previous.get(key);
+            ParsedTablePage parsed;
+            if (stored != null) {
+                parsed = ExtractionIndex.renumber(stored, page + 1);
+            } else {
+                final int pageIndex = page;
+                parsed = withPageBuffers(buffers -> parsePdfTablePage(document, renderer, pageIndex, buffers));
             }
-            ParsedTablePage parsedTablePage = parsePdfTablePage(bi, document.getPage(page), page + 1);
-            out.add(parsedTablePage);
+            current.put(key, parsed);
+            index.put(hash, parsed, stored != null);
+            out.add(parsed);
         }
         return out;
     }
@@ -135,8 +510,76 @@ public class PdfTableReader {
         return parsePdfTablePages(document, page, page).get(0);
     }
 
+    /**
+     * Parses only specified regions of single PDF page. Only these regions are rendered and analyzed,
+     * so processing cost scales with requested area rather than page size.
+     * Cells of all regions are returned as single parsed page.
+     *
+     * @param document PDF document instance
+     * @param page     number of page to parse (first page == 1)
+     * @param regions  page regions in PDF user space (points, origin in lower left corner of the page)
+     * @return parsed page
+     * @throws IOException
+     */
+    public ParsedTablePage parsePdfTablePageRegions(PDDocument document, int page, List<Rectangle2D> regions) throws IOException {
+        List<Rectangle2D> displayRegions = new ArrayList<>();
+        synchronized (document) {
+            PDPage pdPage = document.getPage(page - 1);
+            for (Rectangle2D region : regions) {
+                Rectangle2D displayRegion = toDisplayRegion(pdPage, region);
+                if (displayRegion != null) {
+                    displayRegions.add(displayRegion);
+                }
+            }
+        }
+        // top to bottom, left to right, so that rows keep page order
+        displayRegions.sort(Comparator.comparingDouble(Rectangle2D::getMinY).thenComparingDouble(Rectangle2D::getMinX));
+
+        // regions differ in size, their buffers are not shared with full page rendering
+        PageBuffers buffers = new PageBuffers();
+        try {
+            return parsePdfTablePage(document, new PDFRenderer(document), page - 1, displayRegions, buffers);
+        } finally {
+            buffers.release();
+        }
+    }
+
+    /**
+     * Maps region in PDF user space to displayed page, i.e. page rotated by its /Rotate entry, in points with origin
+     * in upper left corner of crop box. Rendered page images (divided by DPI ratio) and text positions use these coordinates.
+     *
+     * @param pdPage PDF page
+     * @param region region in PDF user space
+     * @return region clipped to crop box, null when it lies outside
+     */
+    static Rectangle2D toDisplayRegion(PDPage pdPage, Rectangle2D region) {
+        PDRectangle cropBox = pdPage.getCropBox();
+        Rectangle2D clipped = region.createIntersection(
+                new Rectangle2D.Float(cropBox.getLowerLeftX(), cropBox.getLowerLeftY(), cropBox.getWidth(), cropBox.getHeight()));
+        if (clipped.isEmpty()) {
+            return null;
+        }
+        double width = cropBox.getWidth();
+        double height = cropBox.getHeight();
+        double x0 = clipped.getMinX() - cropBox.getLowerLeftX();
+        double x1 = clipped.getMaxX() - cropBox.getLowerLeftX();
+        double y0 = clipped.getMinY() - cropBox.getLowerLeftY();
+        double y1 = clipped.getMaxY() - cropBox.getLowerLeftY();
+        switch ((pdPage.getRotation() % 360 + 360) % 360) {
+            case 90:
+                return new Rectangle2D.Double(y0, x0, y1 - y0, x1 - x0);
+            case 180:
+                return new Rectangle2D.Double(width - x1, y0, x1 - x0, y1 - y0);
+            case 270:
+                return new Rectangle2D.Double(height - y1, width - x1, y1 - y0, x1 - x0);
+            default:
+                return new Rectangle2D.Double(x0, height - y1, x1 - x0, y1 - y0);
+        }
+    }
+
     /**
      * Saves debug images of PDF pages from specified range and saves them in specified directory.
+     * Images are passed to debug image sink from settings regardless of debug sampling settings.
      *
      * @param document  PDF document instance
      * @param startPage first page in range to process (first page == 1)
@@ -145,20 +588,17 @@ public class PdfTableReader {
      * @throws IOException
      */
     public void savePdfTablePagesDebugImages(PDDocument document, int startPage, int endPage, Path outputDir) throws IOException {
-        TableExtractor debugExtractor = new TableExtractor(settings);
         PDFRenderer renderer = new PDFRenderer(document);
         for (int page = startPage - 1; page < endPage; ++page) {
-            PdfTableSettings debugSettings = PdfTableSettings.getBuilder()
-                    .setDebugImages(true)
-                    .setDebugFileOutputDir(outputDir)
-                    .setDebugFilename("page_" + (page + 1))
-                    .build();
-            debugExtractor.setSettings(debugSettings);
-            BufferedImage bi;
-            synchronized (this) {
-                bi = renderer.renderImageWithDPI(page, settings.getPdfRenderingDpi(), ImageType.RGB);
+            DebugPageCapture capture = new DebugPageCapture(outputDir, "page_" + (page + 1));
+            final int index = page;
+            try {
+                withPageBuffers(buffers -> extractor.getTableBoundingRectangles(
+                        toGrayscaleMat(renderPage(document, renderer, index, buffers), index + 1, buffers), capture, index + 1, buffers));
+                capture.writeTo(settings.getDebugImageSink());
+            } finally {
+                capture.release();
             }
-            debugExtractor.getTableBoundingRectangles(bufferedImage2GrayscaleMat(bi));
         }
     }
 
@@ -176,23 +616,170 @@ public class PdfTableReader {
 
     /**
      * Parses PDF page cell by cell using rectangles obtained from TableExtractor.
+     * Pages with at least settings.getParallelCellThreshold() cells are parsed in parallel row bands.
      *
+     * @param document   PDF document instance, used as lock
      * @param page       PDF page
      * @param rectangles list of OpenCV rectangles recognized by TableExtractor
      * @return parsed page
      * @throws IOException
      */
-    private ParsedTablePage parsePageByRectangles(PDPage page, List<Rect> rectangles, int pageNumber) throws IOException {
+    private ParsedTablePage parsePageByRectangles(PDDocument document, PDPage page, List<Rect> rectangles, int pageNumber) throws IOException {
+        return parsePageByRectangles(document, page, rectangles, pageNumber, null);
+    }
+
+    /**
+     * Parses PDF page cell by cell, using text positions recorded before instead of parsing page content again.
+     *
+     * @param document   PDF document instance, used as lock
+     * @param page       PDF page
+     * @param rectangles list of cell rectangles
+     * @param positions  text positions recorded by TextPositionRecorder, null when page content should be parsed
+     * @return parsed page
+     * @throws IOException
+     */
+    private ParsedTablePage parsePageByRectangles(PDDocument document, PDPage page, List<Rect> rectangles, int pageNumber, List<TextPosition> positions) throws IOException {
+        PipelineEvent event = PipelineEvents.begin(Stage.TEXT_EXTRACTION, pageNumber).setCellCount(rectangles.size());
         List<List<Rect>> sortedRects = groupRectanglesByRow(rectangles);
         ParsedTablePage out = new ParsedTablePage(pageNumber);
 
-        PDFTextStripperByArea stripper = new PDFTextStripperByArea();
-        stripper.setSortByPosition(true);
+        List<List<String>> rowTexts;
+        int bands = settings.getParallelBandCount() > 0 ? settings.getParallelBandCount() : ForkJoinPool.getCommonPoolParallelism();
+        int bandCount = Math.min(sortedRects.size(), bands);
+        int threshold = settings.getParallelCellThreshold();
+        if (threshold > 0 && rectangles.size() >= threshold && bandCount > 1) {
+            rowTexts = parseRowsInBands(document, page, sortedRects, bandCount, positions);
+        } else if (positions != null) {
+            RecordedTextStripperByArea stripper = new RecordedTextStripperByArea();
+            stripper.setSortByPosition(true);
+            addRowRegions(stripper, sortedRects, 0, sortedRects.size());
+            stripper.extractRegions(positions);
+            rowTexts = getRowTexts(stripper, sortedRects, 0, sortedRects.size());
+        } else {
+            PDFTextStripperByArea stripper = new PDFTextStripperByArea();
+            stripper.setSortByPosition(true);
+            addRowRegions(stripper, sortedRects, 0, sortedRects.size());
+            synchronized (document) {
+                stripper.extractRegions(page);
+            }
+            rowTexts = getRowTexts(stripper, sortedRects, 0, sortedRects.size());
+        }
+
+        int tolerance = (int) Math.ceil(CELL_ADJACENCY_TOLERANCE / settings.getDpiRatio());
+        TableStructure structure = new TableStructure(sortedRects, tolerance);
+        PDRectangle cropBox;
+        synchronized (document) {
+            cropBox = page.getCropBox();
+        }
+        out.setPageBounds(cropBox.getLowerLeftX(), cropBox.getLowerLeftY(), cropBox.getUpperRightX(), cropBox.getUpperRightY());
+        for (int iRow = 0; iRow < sortedRects.size(); iRow++) {
+            out.addRow(rowTexts.get(iRow), getRowBounds(sortedRects.get(iRow), cropBox), structure.getRowLayout(iRow));
+        }
+        for (int table = 0; table < structure.getTableCount(); table++) {
+            out.addTable(structure.getTableRows(table), structure.getTableColumns(table));
+        }
+
+        event.close();
+        return out;
+    }
+
+    /**
+     * Parses rows split into horizontal bands concurrently. Page content is parsed only once and recorded
+     * text positions are distributed to independent region strippers, one per band. Stripper may modify
+     * positions it holds (diacritics are merged into preceding position), so position falling into bounds
+     * of several bands is passed to first of them and copied for the others.
+     *
+     * @param document   PDF document instance, used as lock
+     * @param page       PDF page
+     * @param sortedRects rectangles grouped by row
+     * @param bandCount  number of bands
+     * @param recorded   text positions recorded before, null when page content should be parsed
+     * @return list of rows containing cell texts
+     * @throws IOException
+     */
+    private List<List<String>> parseRowsInBands(PDDocument document, PDPage page, List<List<Rect>> sortedRects, int bandCount,
+                                                List<TextPosition> recorded) throws IOException {
+        List<TextPosition> positions = recorded;
+        if (positions == null) {
+            synchronized (document) {
+                positions = new TextPositionRecorder().record(page);
+            }
+        }
+
+        List<RecordedTextStripperByArea> strippers = new ArrayList<>();
+        List<Rectangle> bandBounds = new ArrayList<>();
+        List<List<TextPosition>> bandPositions = new ArrayList<>();
+        int rowsPerBand = (sortedRects.size() + bandCount - 1) / bandCount;
+        for (int firstRow = 0; firstRow < sortedRects.size(); firstRow += rowsPerBand) {
+            RecordedTextStripperByArea stripper = new RecordedTextStripperByArea();
+            stripper.setSortByPosition(true);
+            bandBounds.add(addRowRegions(stripper, sortedRects, firstRow, Math.min(firstRow + rowsPerBand, sortedRects.size())));
+            strippers.add(stripper);
+            bandPositions.add(new ArrayList<>());
+        }
+        for (TextPosition position : positions) {
+            boolean assigned = false;
+            for (int band = 0; band < bandBounds.size(); band++) {
+                if (bandBounds.get(band).contains(position.getX(), position.getY())) {
+                    bandPositions.get(band).add(assigned ? copyOf(position) : position);
+                    assigned = true;
+                }
+            }
+        }
+
+        List<Future<List<List<String>>>> bands = new ArrayList<>();
+        for (int band = 0; band < strippers.size(); band++) {
+            final int from = band * rowsPerBand;
+            final int to = Math.min(from + rowsPerBand, sortedRects.size());
+            final RecordedTextStripperByArea stripper = strippers.get(band);
+            final List<TextPosition> input = bandPositions.get(band);
+            bands.add(ForkJoinPool.commonPool().submit(() -> {
+                stripper.extractRegions(input);
+                return getRowTexts(stripper, sortedRects, from, to);
+            }));
+        }
+
+        List<List<String>> out = new ArrayList<>(sortedRects.size());
+        try {
+            for (Future<List<List<String>>> band : bands) {
+                out.addAll(band.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        return out;
+    }
 
-        int iRow = 0;
-        int iCol = 0;
-        for (List<Rect> row : sortedRects) {
-            for (Rect col : row) {
+    /**
+     * @return independent copy of text position which has not been merged with diacritics yet
+     */
+    private static TextPosition copyOf(TextPosition position) {
+        return new TextPosition(position.getRotation(), position.getPageWidth(), position.getPageHeight(), position.getTextMatrix(),
+                position.getEndX(), position.getEndY(), position.getHeight(), position.getIndividualWidths()[0],
+                position.getWidthOfSpace(), position.getUnicode(), position.getCharacterCodes(), position.getFont(),
+                position.getFontSize(), (int) position.getFontSizeInPt());
+    }
+
+    /**
+     * Registers regions of specified rows in stripper.
+     *
+     * @param stripper    region stripper
+     * @param sortedRects rectangles grouped by row
+     * @param fromRow     first row (inclusive)
+     * @param toRow       last row (exclusive)
+     * @return bounding box of all registered regions in PDF coordinates
+     */
+    private Rectangle addRowRegions(PDFTextStripperByArea stripper, List<List<Rect>> sortedRects, int fromRow, int toRow) {
+        Rectangle bounds = null;
+        for (int iRow = fromRow; iRow < toRow; iRow++) {
+            int iCol = 0;
+            for (Rect col : sortedRects.get(iRow)) {
                 Rectangle r = new Rectangle(
                         (int) (col.x * settings.getDpiRatio()),
                         (int) (col.y * settings.getDpiRatio()),
@@ -200,28 +787,51 @@ public class PdfTableReader {
                         (int) (col.height * settings.getDpiRatio())
                 );
                 stripper.addRegion(getRegionId(iRow, iCol), r);
+                bounds = bounds == null ? new Rectangle(r) : bounds.union(r);
                 iCol++;
             }
-            iRow++;
-            iCol = 0;
         }
+        return bounds == null ? new Rectangle() : bounds;
+    }
 
-        stripper.extractRegions(page);
+    /**
+     * Converts row rectangles from image pixels to flat array of cell bounds in PDF user space.
+     *
+     * @param row     row rectangles
+     * @param cropBox page crop box, rendered image covers this area
+     * @return left, bottom, right, top of each cell
+     */
+    private float[] getRowBounds(List<Rect> row, PDRectangle cropBox) {
+        double ratio = settings.getDpiRatio();
+        float[] out = new float[row.size() * ParsedTableRow.BOUNDS_SIZE];
+        int i = 0;
+        for (Rect rect : row) {
+            out[i++] = (float) (cropBox.getLowerLeftX() + rect.x * ratio);
+            out[i++] = (float) (cropBox.getUpperRightY() - (rect.y + rect.height) * ratio);
+            out[i++] = (float) (cropBox.getLowerLeftX() + (rect.x + rect.width) * ratio);
+            out[i++] = (float) (cropBox.getUpperRightY() - rect.y * ratio);
+        }
+        return out;
+    }
 
-        iRow = 0;
-        iCol = 0;
-        for (List<Rect> row : sortedRects) {
+    /**
+     * Collects texts of specified rows from stripper after regions were extracted.
+     *
+     * @param stripper    region stripper
+     * @param sortedRects rectangles grouped by row
+     * @param fromRow     first row (inclusive)
+     * @param toRow       last row (exclusive)
+     * @return list of rows containing cell texts
+     */
+    private static List<List<String>> getRowTexts(PDFTextStripperByArea stripper, List<List<Rect>> sortedRects, int fromRow, int toRow) {
+        List<List<String>> out = new ArrayList<>(toRow - fromRow);
+        for (int iRow = fromRow; iRow < toRow; iRow++) {
             List<String> rowCells = new ArrayList<>();
-            for (Rect col : row) {
-                String cellText = stripper.getTextForRegion(getRegionId(iRow, iCol));
-                rowCells.add(cellText);
-                iCol++;
+            for (int iCol = 0; iCol < sortedRects.get(iRow).size(); iCol++) {
+                rowCells.add(stripper.getTextForRegion(getRegionId(iRow, iCol)));
             }
-            out.addRow(rowCells);
-            iRow++;
-            iCol = 0;
+            out.add(rowCells);
         }
-
         return out;
     }
 
@@ -1,10 +1,14 @@
 package pdftable;
 
 
+import pdftable.debug.DebugImageSink;
+import pdftable.debug.SyncDebugImageSink;
+
 import java.nio.file.Path;
+import java.util.Locale;
 
 /**
- * Image conversion settings.
+ * Image conversion settings. Instances are immutable and can be shared between threads.
  */
 public class PdfTableSettings {
 
@@ -18,6 +22,12 @@ public class PdfTableSettings {
         private static final int DEFAULT_PDF_DPI = 72;
         private int pdfRenderingDpi = 120;
 
+        // RENDERING BUFFERS
+        private boolean renderBufferPooling = true;
+
+        // DETECTION ENGINE
+        private DetectionMode detectionMode = DetectionMode.RASTER;
+
         // CANNY EDGE DETECTION FLAG
         private boolean cannyFiltering = false;
 
@@ -34,16 +44,40 @@ public class PdfTableSettings {
         // BOUNDING RECT PARAMS
         private double approxDistScaleFactor = 0.02;
 
+        // TEXT EXTRACTION PARAMS
+        private int parallelCellThreshold = 1000;
+        private int parallelBandCount = 0;
+
         // DEBUG IMAGES PARAMS
         private boolean debugImages = false;
         private Path debugFileOutputDir;
         private String debugFilename;
+        private DebugImageSink debugImageSink = new SyncDebugImageSink();
+        private int debugSampleEveryNthPage = 1;
+        private long debugSlowPageThresholdMillis = -1;
 
         public PdfTableSettingsBuilder setPdfRenderingDpi(int pdfRenderingDpi) {
             this.pdfRenderingDpi = pdfRenderingDpi;
             return this;
         }
 
+        /**
+         * Pages are rendered into per-thread buffers reused by following pages of the same size.
+         * When disabled, buffers are allocated for each page and released right after it is parsed.
+         */
+        public PdfTableSettingsBuilder setRenderBufferPooling(boolean renderBufferPooling) {
+            this.renderBufferPooling = renderBufferPooling;
+            return this;
+        }
+
+        /**
+         * Engine used for determining table cells, see {@link DetectionMode}.
+         */
+        public PdfTableSettingsBuilder setDetectionMode(DetectionMode detectionMode) {
+            this.detectionMode = detectionMode;
+            return this;
+        }
+
         public PdfTableSettingsBuilder setCannyFiltering(boolean cannyFiltering) {
             this.cannyFiltering = cannyFiltering;
             return this;
@@ -84,6 +118,24 @@ public class PdfTableSettings {
             return this;
         }
 
+        /**
+         * Pages with at least given number of cells have their text extracted in parallel row bands.
+         * Value lower than 1 disables parallel extraction.
+         */
+        public PdfTableSettingsBuilder setParallelCellThreshold(int parallelCellThreshold) {
+            this.parallelCellThreshold = parallelCellThreshold;
+            return this;
+        }
+
+        /**
+         * Number of row bands used for parallel text extraction.
+         * Value lower than 1 means parallelism of common fork-join pool.
+         */
+        public PdfTableSettingsBuilder setParallelBandCount(int parallelBandCount) {
+            this.parallelBandCount = parallelBandCount;
+            return this;
+        }
+
         public PdfTableSettingsBuilder setDebugImages(boolean debugImages) {
             this.debugImages = debugImages;
             return this;
@@ -99,39 +151,77 @@ public class PdfTableSettings {
             return this;
         }
 
+        public PdfTableSettingsBuilder setDebugImageSink(DebugImageSink debugImageSink) {
+            this.debugImageSink = debugImageSink;
+            return this;
+        }
+
+        /**
+         * Debug images are written for every Nth page (first page is always sampled).
+         * Value lower than 1 disables count based sampling.
+         */
+        public PdfTableSettingsBuilder setDebugSampleEveryNthPage(int debugSampleEveryNthPage) {
+            this.debugSampleEveryNthPage = debugSampleEveryNthPage;
+            return this;
+        }
+
+        /**
+         * Debug images are written for pages which took at least given number of milliseconds to parse.
+         * Negative value disables time based sampling.
+         */
+        public PdfTableSettingsBuilder setDebugSlowPageThresholdMillis(long debugSlowPageThresholdMillis) {
+            this.debugSlowPageThresholdMillis = debugSlowPageThresholdMillis;
+            return this;
+        }
+
         public PdfTableSettings build() {
             return new PdfTableSettings(this);
         }
     }
 
     // DPI SETTINGS
-    private int defaultPdfDpi;
-    private int pdfRenderingDpi;
+    private final int defaultPdfDpi;
+    private final int pdfRenderingDpi;
+
+    // RENDERING BUFFERS
+    private final boolean renderBufferPooling;
+
+    // DETECTION ENGINE
+    private final DetectionMode detectionMode;
 
     // CANNY EDGE DETECTION FLAG
-    private boolean cannyFiltering;
+    private final boolean cannyFiltering;
 
     // BINARY INVERTED THRESHOLD SETTINGS
-    private double bitThreshold;
-    private double bitMaxVal;
+    private final double bitThreshold;
+    private final double bitMaxVal;
 
     // CANNY FILTER SETTINGS
-    private double cannyThreshold1;
-    private double cannyThreshold2;
-    private int cannyApertureSize;
-    private boolean cannyL2Gradient;
+    private final double cannyThreshold1;
+    private final double cannyThreshold2;
+    private final int cannyApertureSize;
+    private final boolean cannyL2Gradient;
 
     // BOUNDING RECT PARAMS
-    private double approxDistScaleFactor;
+    private final double approxDistScaleFactor;
+
+    // TEXT EXTRACTION PARAMS
+    private final int parallelCellThreshold;
+    private final int parallelBandCount;
 
     // DEBUG IMAGES PARAMS
-    private boolean debugImages;
-    private Path debugFileOutputDir;
-    private String debugFilename;
+    private final boolean debugImages;
+    private final Path debugFileOutputDir;
+    private final String debugFilename;
+    private final DebugImageSink debugImageSink;
+    private final int debugSampleEveryNthPage;
+    private final long debugSlowPageThresholdMillis;
 
     private PdfTableSettings(PdfTableSettingsBuilder builder) {
         this.defaultPdfDpi = PdfTableSettingsBuilder.DEFAULT_PDF_DPI;
         this.pdfRenderingDpi = builder.pdfRenderingDpi;
+        this.renderBufferPooling = builder.renderBufferPooling;
+        this.detectionMode = builder.detectionMode;
         this.cannyFiltering = builder.cannyFiltering;
         this.bitThreshold = builder.bitThreshold;
         this.bitMaxVal = builder.bitMaxVal;
@@ -140,9 +230,14 @@ public class PdfTableSettings {
         this.cannyApertureSize = builder.cannyApertureSize;
         this.cannyL2Gradient = builder.cannyL2Gradient;
         this.approxDistScaleFactor = builder.approxDistScaleFactor;
+        this.parallelCellThreshold = builder.parallelCellThreshold;
+        this.parallelBandCount = builder.parallelBandCount;
         this.debugImages = builder.debugImages;
         this.debugFileOutputDir = builder.debugFileOutputDir;
         this.debugFilename = builder.debugFilename;
+        this.debugImageSink = builder.debugImageSink;
+        this.debugSampleEveryNthPage = builder.debugSampleEveryNthPage;
+        this.debugSlowPageThresholdMillis = builder.debugSlowPageThresholdMillis;
     }
 
     public PdfTableSettings() {
@@ -153,6 +248,36 @@ public class PdfTableSettings {
         return new PdfTableSettingsBuilder();
     }
 
+    /**
+     * Returns builder initialized with values of existing settings, used for overriding some of them.
+     *
+     * @param base settings to copy
+     * @return builder with copied values
+     */
+    public static PdfTableSettingsBuilder getBuilder(PdfTableSettings base) {
+        PdfTableSettingsBuilder builder = new PdfTableSettingsBuilder();
+        builder.pdfRenderingDpi = base.pdfRenderingDpi;
+        builder.renderBufferPooling = base.renderBufferPooling;
+        builder.detectionMode = base.detectionMode;
+        builder.cannyFiltering = base.cannyFiltering;
+        builder.bitThreshold = base.bitThreshold;
+        builder.bitMaxVal = base.bitMaxVal;
+        builder.cannyThreshold1 = base.cannyThreshold1;
+        builder.cannyThreshold2 = base.cannyThreshold2;
+        builder.cannyApertureSize = base.cannyApertureSize;
+        builder.cannyL2Gradient = base.cannyL2Gradient;
+        builder.approxDistScaleFactor = base.approxDistScaleFactor;
+        builder.parallelCellThreshold = base.parallelCellThreshold;
+        builder.parallelBandCount = base.parallelBandCount;
+        builder.debugImages = base.debugImages;
+        builder.debugFileOutputDir = base.debugFileOutputDir;
+        builder.debugFilename = base.debugFilename;
+        builder.debugImageSink = base.debugImageSink;
+        builder.debugSampleEveryNthPage = base.debugSampleEveryNthPage;
+        builder.debugSlowPageThresholdMillis = base.debugSlowPageThresholdMillis;
+        return builder;
+    }
+
     public int getDefaultPdfDpi() {
         return defaultPdfDpi;
     }
@@ -161,6 +286,14 @@ public class PdfTableSettings {
         return pdfRenderingDpi;
     }
 
+    public boolean hasRenderBufferPooling() {
+        return renderBufferPooling;
+    }
+
+    public DetectionMode getDetectionMode() {
+        return detectionMode;
+    }
+
     public boolean hasCannyFiltering() {
         return cannyFiltering;
     }
@@ -193,6 +326,14 @@ public class PdfTableSettings {
         return approxDistScaleFactor;
     }
 
+    public int getParallelCellThreshold() {
+        return parallelCellThreshold;
+    }
+
+    public int getParallelBandCount() {
+        return parallelBandCount;
+    }
+
     public boolean hasDebugImages() {
         return debugImages;
     }
@@ -205,6 +346,63 @@ public class PdfTableSettings {
         return debugFilename;
     }
 
+    public DebugImageSink getDebugImageSink() {
+        return debugImageSink;
+    }
+
+    public int getDebugSampleEveryNthPage() {
+        return debugSampleEveryNthPage;
+    }
+
+    public long getDebugSlowPageThresholdMillis() {
+        return debugSlowPageThresholdMillis;
+    }
+
+    /**
+     * Checks whether debug images of given page should be written according to sampling settings.
+     *
+     * @param pageNumber    page number (first page == 1)
+     * @param elapsedMillis time spent on parsing the page
+     * @return true when page is sampled
+     */
+    public boolean isDebugPageSampled(int pageNumber, long elapsedMillis) {
+        boolean slowPage = debugSlowPageThresholdMillis >= 0 && elapsedMillis >= debugSlowPageThresholdMillis;
+        return isDebugPageSampled(pageNumber) || slowPage;
+    }
+
+    /**
+     * Checks whether debug images of given page should be written regardless of its parsing time.
+     *
+     * @param pageNumber page number (first page == 1)
+     * @return true when every n-th page sampling selects the page
+     */
+    public boolean isDebugPageSampled(int pageNumber) {
+        return debugSampleEveryNthPage > 0 && (pageNumber - 1) % debugSampleEveryNthPage == 0;
+    }
+
+    /**
+     * Checks whether debug images of given page need to be captured while it is parsed,
+     * i.e. whether they may be written once its parsing time is known.
+     *
+     * @param pageNumber page number (first page == 1)
+     * @return true when debug images are enabled and page is sampled or slow pages are sampled
+     */
+    public boolean isDebugPageCaptured(int pageNumber) {
+        return debugImages && (isDebugPageSampled(pageNumber) || debugSlowPageThresholdMillis >= 0);
+    }
+
+    /**
+     * Returns string identifying all settings which affect extraction results.
+     * Results produced with settings of different fingerprint should not be reused.
+     *
+     * @return settings fingerprint
+     */
+    public String getExtractionFingerprint() {
+        return String.format(Locale.ROOT, "dpi=%d;canny=%b;bit=%s/%s;cannyThresholds=%s/%s;aperture=%d;l2=%b;approx=%s;detection=%s",
+                pdfRenderingDpi, cannyFiltering, bitThreshold, bitMaxVal, cannyThreshold1, cannyThreshold2,
+                cannyApertureSize, cannyL2Gradient, approxDistScaleFactor, detectionMode);
+    }
+
     public double getDpiRatio() {
         return (double) defaultPdfDpi / pdfRenderingDpi;
     }
@@ -0,0 +1,36 @@
+package pdftable;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripperByArea;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Region stripper fed with previously recorded text positions instead of parsing page content.
+ * Each instance has its own state, so several instances can extract regions of the same page concurrently.
+ */
+class RecordedTextStripperByArea extends PDFTextStripperByArea {
+
+    private static final PDPage EMPTY_PAGE = new PDPage();
+
+    RecordedTextStripperByArea() throws IOException {
+        super();
+    }
+
+    /**
+     * Assigns text positions to regions and builds region texts, same as extractRegions(PDPage) would do.
+     *
+     * @param positions text positions recorded by TextPositionRecorder, in content stream order
+     * @throws IOException
+     */
+    void extractRegions(List<TextPosition> positions) throws IOException {
+        // initializes per region state without processing any content
+        extractRegions(EMPTY_PAGE);
+        for (TextPosition position : positions) {
+            processTextPosition(position);
+        }
+        writePage();
+    }
+}
@@ -1,8 +1,11 @@
 package pdftable;
 
 import org.opencv.core.*;
-import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
+import pdftable.debug.DebugPageCapture;
+import pdftable.trace.PipelineEvent;
+import pdftable.trace.PipelineEvents;
+import pdftable.trace.Stage;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -13,15 +16,11 @@ import static org.opencv.imgproc.Imgproc.*;
 
 /**
  * Class responsible for determining table cells bounding boxes.
- * Should be used as static.
+ * Immutable and thread-safe, intermediate images are local to single call or held by caller's page buffers.
  */
 class TableExtractor {
 
-    private PdfTableSettings settings;
-
-    static {
-        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
-    }
+    private final PdfTableSettings settings;
 
     public TableExtractor(PdfTableSettings settings) {
         this.settings = settings;
@@ -29,70 +28,116 @@ class TableExtractor {
 
     /**
      * Applies series of filters on page image and extracts table cells bounding rectangles.
-     * Additionally dumps debug PNG images when settings.hasDebugImages() is true.
      *
      * @param inImage Input image
      * @return List of org.opencv.core.Rect objects representing cell bounding rectangles.
      */
     public List<Rect> getTableBoundingRectangles(Mat inImage) {
-        List<Rect> out = new ArrayList<>();
+        return getTableBoundingRectangles(inImage, null);
+    }
 
-        if (settings.hasDebugImages()) {
-            Imgcodecs.imwrite(buildDebugFilename("original_grayscaled"), inImage);
+    /**
+     * Applies series of filters on page image and extracts table cells bounding rectangles.
+     * Additionally records debug images in capture when it is not null.
+     *
+     * @param inImage Input image
+     * @param capture debug images capture, may be null
+     * @return List of org.opencv.core.Rect objects representing cell bounding rectangles.
+     */
+    public List<Rect> getTableBoundingRectangles(Mat inImage, DebugPageCapture capture) {
+        return getTableBoundingRectangles(inImage, capture, 0);
+    }
+
+    /**
+     * Applies series of filters on page image and extracts table cells bounding rectangles.
+     * Additionally records debug images in capture when it is not null.
+     * Each phase is reported as pipeline event of given page.
+     *
+     * @param inImage    Input image
+     * @param capture    debug images capture, may be null
+     * @param pageNumber page number reported in pipeline events, 0 when unknown
+     * @return List of org.opencv.core.Rect objects representing cell bounding rectangles.
+     */
+    public List<Rect> getTableBoundingRectangles(Mat inImage, DebugPageCapture capture, int pageNumber) {
+        PageBuffers buffers = new PageBuffers();
+        try {
+            return getTableBoundingRectangles(inImage, capture, pageNumber, buffers);
+        } finally {
+            buffers.release();
         }
+    }
+
+    /**
+     * Applies series of filters on page image and extracts table cells bounding rectangles.
+     * Intermediate images are written to given buffers, so that they are reused by following pages
+     * of the same size. Debug images are recorded as copies, buffers can be reused right after this call.
+     *
+     * @param inImage    Input image
+     * @param capture    debug images capture, may be null
+     * @param pageNumber page number reported in pipeline events, 0 when unknown
+     * @param buffers    intermediate images buffers
+     * @return List of org.opencv.core.Rect objects representing cell bounding rectangles.
+     */
+    public List<Rect> getTableBoundingRectangles(Mat inImage, DebugPageCapture capture, int pageNumber, PageBuffers buffers) {
+        OpenCvLoader.load();
+        List<Rect> out = new ArrayList<>();
+
+        addCopy(capture, "original_grayscaled", inImage);
 
         // binary inverted threshold
-        Mat bit = binaryInvertedThreshold(inImage);
-        if (settings.hasDebugImages()) {
-            Imgcodecs.imwrite(buildDebugFilename("binary_inverted_threshold"), bit);
-        }
+        PipelineEvent event = PipelineEvents.begin(Stage.THRESHOLD, pageNumber).setImageSize(inImage.cols(), inImage.rows());
+        Mat bit = binaryInvertedThreshold(inImage, buffers.getBit());
+        event.close();
+        addCopy(capture, "binary_inverted_threshold", bit);
 
         // find contours
+        event = PipelineEvents.begin(Stage.CONTOURS, pageNumber);
         List<MatOfPoint> contours = new ArrayList<>();
         if (settings.hasCannyFiltering()) {
-            Mat canny = cannyFilter(inImage);
-            findContours(canny, contours, new Mat(), RETR_EXTERNAL, CHAIN_APPROX_SIMPLE);
-            if (settings.hasDebugImages()) {
-                Imgcodecs.imwrite(buildDebugFilename("canny1"), canny);
-            }
+            Mat canny = cannyFilter(inImage, buffers.getCanny());
+            findContours(canny, contours, buffers.getHierarchy(), RETR_EXTERNAL, CHAIN_APPROX_SIMPLE);
+            addCopy(capture, "canny1", canny);
         } else {
-            findContours(bit, contours, new Mat(), RETR_EXTERNAL, CHAIN_APPROX_SIMPLE);
+            findContours(bit, contours, buffers.getHierarchy(), RETR_EXTERNAL, CHAIN_APPROX_SIMPLE);
         }
+        event.setContourCount(contours.size()).close();
 
         // draw contour
-        Mat contourMask = bit.clone();
+        event = PipelineEvents.begin(Stage.MASK, pageNumber).setContourCount(contours.size());
+        Mat contourMask = buffers.getContourMask();
+        bit.copyTo(contourMask);
         drawContours(contourMask, contours, -1, new Scalar(255, 255, 255), Core.FILLED);
-        if (settings.hasDebugImages()) {
-            Imgcodecs.imwrite(buildDebugFilename("contour_mask"), contourMask);
-        }
+        event.close();
+        addCopy(capture, "contour_mask", contourMask);
 
         // XOR threshold and mask
-        Mat xored = new Mat();
+        event = PipelineEvents.begin(Stage.XOR, pageNumber);
+        Mat xored = buffers.getXored();
         bitwise_xor(bit, contourMask, xored);
-        if (settings.hasDebugImages()) {
-            Imgcodecs.imwrite(buildDebugFilename("xored"), xored);
-        }
+        event.close();
+        addCopy(capture, "xored", xored);
 
         // find contours #2
+        event = PipelineEvents.begin(Stage.CONTOURS2, pageNumber);
         List<MatOfPoint> contours2 = new ArrayList<>();
         if (settings.hasCannyFiltering()) {
-            Mat canny2 = cannyFilter(xored);
-            findContours(canny2, contours2, new Mat(), RETR_EXTERNAL, CHAIN_APPROX_SIMPLE);
-            if (settings.hasDebugImages()) {
-                Imgcodecs.imwrite(buildDebugFilename("canny2"), canny2);
-            }
+            Mat canny2 = cannyFilter(xored, buffers.getCanny());
+            findContours(canny2, contours2, buffers.getHierarchy(), RETR_EXTERNAL, CHAIN_APPROX_SIMPLE);
+            addCopy(capture, "canny2", canny2);
         } else {
-            findContours(xored, contours2, new Mat(), RETR_EXTERNAL, CHAIN_APPROX_SIMPLE);
+            findContours(xored, contours2, buffers.getHierarchy(), RETR_EXTERNAL, CHAIN_APPROX_SIMPLE);
         }
+        event.setContourCount(contours2.size()).close();
 
         // draw contour #2
-        if (settings.hasDebugImages()) {
+        if (capture != null) {
             Mat contourMask2 = inImage.clone();
             drawContours(contourMask2, contours2, -1, new Scalar(255, 255, 255), Core.FILLED);
-            Imgcodecs.imwrite(buildDebugFilename("final_contours"), contourMask2);
+            capture.add("final_contours", contourMask2);
         }
 
         // find contours #2 bounding rectangles
+        event = PipelineEvents.begin(Stage.APPROXIMATION, pageNumber).setContourCount(contours2.size());
         for (int i = 0; i < contours2.size(); i++) {
             MatOfPoint2f approxCurve = new MatOfPoint2f();
             MatOfPoint2f contour2f = new MatOfPoint2f(contours2.get(i).toArray());
@@ -102,36 +147,45 @@ class TableExtractor {
             Rect rect = Imgproc.boundingRect(points);
             out.add(rect);
         }
+        event.setCellCount(out.size()).close();
 
         Collections.reverse(out);
 
-        if (settings.hasDebugImages()) {
-            int ri = 0;
+        // single overlay with all boxes instead of one image per box
+        if (capture != null) {
+            Mat boxes = inImage.clone();
             for (Rect rect : out) {
-                Mat outImage = inImage.clone();
                 Point p1 = new Point(rect.x, rect.y);
                 Point p2 = new Point(rect.x + rect.width, rect.y + rect.height);
-                rectangle(outImage, p1, p2, new Scalar(0, 0, 0, 255), 3);
-                Imgcodecs.imwrite(buildDebugFilename(String.format("box_%03d", ri)), outImage);
-                ri++;
+                rectangle(boxes, p1, p2, new Scalar(0, 0, 0, 255), 3);
             }
+            capture.add("boxes", boxes);
         }
 
         return out;
     }
 
-    public void setSettings(PdfTableSettings settings) {
-        this.settings = settings;
+    /**
+     * Records copy of image in capture, buffers are overwritten by following pages.
+     *
+     * @param capture debug images capture, may be null
+     * @param suffix  debug image suffix
+     * @param image   recorded image
+     */
+    private static void addCopy(DebugPageCapture capture, String suffix, Mat image) {
+        if (capture != null) {
+            capture.add(suffix, image.clone());
+        }
     }
 
     /**
      * Applies Binary Inverted Threshold (BIT) to Mat image.
      *
      * @param input Input image
+     * @param out   Output image
      * @return org.opencv.core.Mat image with applied BIT
      */
-    private Mat binaryInvertedThreshold(Mat input) {
-        Mat out = new Mat();
+    private Mat binaryInvertedThreshold(Mat input, Mat out) {
         threshold(input, out, settings.getBitThreshold(), settings.getBitMaxVal(), THRESH_BINARY_INV);
         return out;
     }
@@ -140,22 +194,12 @@ class TableExtractor {
      * Applies Canny filter to Mat image.
      *
      * @param input Input image
+     * @param out   Output image
      * @return org.opencv.core.Mat image with applied Canny filter
      */
-    private Mat cannyFilter(Mat input) {
-        Mat out = new Mat();
+    private Mat cannyFilter(Mat input, Mat out) {
         Canny(input, out, settings.getCannyThreshold1(), settings.getCannyThreshold2(), settings.getCannyApertureSize(), settings.hasCannyL2Gradient());
         return out;
     }
 
-    /**
-     * String helper used for constructing debug image output path.
-     *
-     * @param suffix Image filename suffix
-     * @return String representing image path
-     */
-    private String buildDebugFilename(String suffix) {
-        return settings.getDebugFileOutputDir().resolve(settings.getDebugFilename() + "_" + suffix + ".png").toString();
-    }
-
 }
@@ -0,0 +1,270 @@
+package pdftable;
+
+import pdftable.models.LogicalTable;
+import pdftable.models.ParsedTablePage;
+import pdftable.models.ParsedTablePage.ParsedTableRow;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental pipeline stage merging tables continued on consecutive pages into logical tables.
+ * <p>
+ * Pages must be passed in page order, e.g. by using it as consumer of
+ * {@link PdfTableReader#parsePdfTablePages(org.apache.pdfbox.pdmodel.PDDocument, int, int, ParsedTablePageConsumer)}.
+ * Tables on a page are taken from page table structure (rows are split between side by side tables), or separated
+ * by vertical gaps between rows when cell layout is not known. First table on a page continues the last table
+ * of previous page when their column boundaries match and, when page bounds are known, the last table ends near
+ * the bottom of its page and the first one starts near the top of the next page. Header rows repeated at the top
+ * of continuation are dropped.
+ * Each logical table is passed downstream as soon as it is closed, only currently open table is kept in memory.
+ * {@link #close()} must be called after last page to flush the open table.
+ */
+public class TableStitcher implements ParsedTablePageConsumer, Closeable {
+
+    private static final float DEFAULT_TOLERANCE = 3f;
+    private static final int DEFAULT_MAX_HEADER_ROWS = 3;
+    private static final float DEFAULT_EDGE_MARGIN = 0.2f;
+
+    private final LogicalTableConsumer downstream;
+    private final float tolerance;
+    private final int maxHeaderRows;
+    private final float edgeMargin;
+
+    private LogicalTable openTable;
+    private ParsedTableRow openTableWidestRow;
+    private boolean openTableEndsAtPageBottom;
+    private int lastPage = 0;
+
+    /**
+     * @param downstream    closed logical tables consumer
+     * @param tolerance     maximal difference of column boundaries and maximal vertical gap between rows
+     *                      of the same table, in PDF points
+     * @param maxHeaderRows maximal number of repeated header rows dropped from continuation
+     * @param edgeMargin    maximal distance of continued table from page bottom and of continuation from page top,
+     *                      as fraction of page height
+     */
+    public TableStitcher(LogicalTableConsumer downstream, float tolerance, int maxHeaderRows, float edgeMargin) {
+        this.downstream = downstream;
+        this.tolerance = tolerance;
+        this.maxHeaderRows = maxHeaderRows;
+        this.edgeMargin = edgeMargin;
+    }
+
+    public TableStitcher(LogicalTableConsumer downstream, float tolerance, int maxHeaderRows) {
+        this(downstream, tolerance, maxHeaderRows, DEFAULT_EDGE_MARGIN);
+    }
+
+    public TableStitcher(LogicalTableConsumer downstream) {
+        this(downstream, DEFAULT_TOLERANCE, DEFAULT_MAX_HEADER_ROWS, DEFAULT_EDGE_MARGIN);
+    }
+
+    @Override
+    public void accept(ParsedTablePage page) throws IOException {
+        if (page.getPageNum() != lastPage + 1) {
+            // tables can be continued only on directly following page
+            flush();
+        }
+        lastPage = page.getPageNum();
+
+        List<List<ParsedTableRow>> segments = splitIntoTables(page);
+        for (int i = 0; i < segments.size(); i++) {
+            List<ParsedTableRow> segment = segments.get(i);
+            if (i == 0 && openTable != null && continues(segment, page)) {
+                openTable.addRows(segment.subList(countRepeatedHeaderRows(segment), segment.size()), page.getPageNum());
+            } else {
+                flush();
+                openTable = new LogicalTable(page.getPageNum());
+                openTable.addRows(segment, page.getPageNum());
+                openTableWidestRow = getWidestRow(segment);
+            }
+            openTableEndsAtPageBottom = isNearPageBottom(segment, page);
+        }
+        if (segments.isEmpty()) {
+            flush();
+        }
+    }
+
+    /**
+     * Passes currently open table downstream.
+     *
+     * @throws IOException when downstream consumer fails
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void flush() throws IOException {
+        if (openTable != null) {
+            LogicalTable closed = openTable;
+            openTable = null;
+            openTableWidestRow = null;
+            openTableEndsAtPageBottom = false;
+            downstream.accept(closed);
+        }
+    }
+
+    /**
+     * Splits page rows into tables by table index of their cells, in order of first appearance.
+     * Rows holding cells of several side by side tables are split into rows of each table.
+     * Pages without cell layout are split by vertical gaps, see {@link #splitByGaps(List)}.
+     */
+    private List<List<ParsedTableRow>> splitIntoTables(ParsedTablePage page) {
+        List<ParsedTableRow> rows = page.getRows();
+        for (ParsedTableRow row : rows) {
+            if (!row.hasLayout()) {
+                return splitByGaps(rows);
+            }
+        }
+        Map<Integer, List<ParsedTableRow>> tables = new LinkedHashMap<>();
+        for (ParsedTableRow row : rows) {
+            Map<Integer, List<Integer>> cellsByTable = new LinkedHashMap<>();
+            for (int i = 0; i < row.getCells().size(); i++) {
+                cellsByTable.computeIfAbsent(row.getCellTable(i), t -> new ArrayList<>()).add(i);
+            }
+            for (Map.Entry<Integer, List<Integer>> table : cellsByTable.entrySet()) {
+                ParsedTableRow tableRow = cellsByTable.size() == 1 ? row : subRow(page, row, table.getValue());
+                tables.computeIfAbsent(table.getKey(), t -> new ArrayList<>()).add(tableRow);
+            }
+        }
+        return new ArrayList<>(tables.values());
+    }
+
+    /**
+     * @return row holding only specified cells of given row
+     */
+    private static ParsedTableRow subRow(ParsedTablePage page, ParsedTableRow row, List<Integer> cellIndexes) {
+        List<String> cells = new ArrayList<>(cellIndexes.size());
+        for (int cell : cellIndexes) {
+            cells.add(row.getCell(cell));
+        }
+        return page.new ParsedTableRow(cells, row.copyCellBounds(cellIndexes), row.copyCellLayout(cellIndexes));
+    }
+
+    /**
+     * Splits page rows into tables. New table starts where vertical gap between rows exceeds tolerance.
+     * Rows without bounds are treated as single table.
+     */
+    private List<List<ParsedTableRow>> splitByGaps(List<ParsedTableRow> rows) {
+        List<List<ParsedTableRow>> out = new ArrayList<>();
+        List<ParsedTableRow> current = new ArrayList<>();
+        float bottom = 0;
+        for (ParsedTableRow row : rows) {
+            if (!current.isEmpty() && row.hasBounds() && bottom - row.getTop() > tolerance) {
+                out.add(current);
+                current = new ArrayList<>();
+            }
+            current.add(row);
+            if (row.hasBounds()) {
+                bottom = current.size() == 1 ? row.getBottom() : Math.min(bottom, row.getBottom());
+            }
+        }
+        if (!current.isEmpty()) {
+            out.add(current);
+        }
+        return out;
+    }
+
+    /**
+     * Checks whether table segment continues currently open table by comparing column boundaries
+     * of their rows with most cells, and by their position on their pages.
+     */
+    private boolean continues(List<ParsedTableRow> segment, ParsedTablePage page) {
+        if (!openTableEndsAtPageBottom || !isNearPageTop(segment, page)) {
+            return false;
+        }
+        ParsedTableRow widest = getWidestRow(segment);
+        if (widest == null || openTableWidestRow == null || !widest.hasBounds() || !openTableWidestRow.hasBounds()
+                || widest.getCells().size() != openTableWidestRow.getCells().size()) {
+            return false;
+        }
+        for (int i = 0; i < widest.getCells().size(); i++) {
+            if (Math.abs(widest.getCellLeft(i) - openTableWidestRow.getCellLeft(i)) > tolerance
+                    || Math.abs(widest.getCellRight(i) - openTableWidestRow.getCellRight(i)) > tolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true when segment ends within edge margin from page bottom, or when it cannot be determined
+     */
+    private boolean isNearPageBottom(List<ParsedTableRow> segment, ParsedTablePage page) {
+        if (!page.hasPageBounds() || !hasBounds(segment)) {
+            return true;
+        }
+        float bottom = Float.MAX_VALUE;
+        for (ParsedTableRow row : segment) {
+            bottom = Math.min(bottom, row.getBottom());
+        }
+        return bottom - page.getPageBottom() <= edgeMargin * (page.getPageTop() - page.getPageBottom());
+    }
+
+    /**
+     * @return true when segment starts within edge margin from page top, or when it cannot be determined
+     */
+    private boolean isNearPageTop(List<ParsedTableRow> segment, ParsedTablePage page) {
+        if (!page.hasPageBounds() || !hasBounds(segment)) {
+            return true;
+        }
+        float top = -Float.MAX_VALUE;
+        for (ParsedTableRow row : segment) {
+            top = Math.max(top, row.getTop());
+        }
+        return page.getPageTop() - top <= edgeMargin * (page.getPageTop() - page.getPageBottom());
+    }
+
+    private static boolean hasBounds(List<ParsedTableRow> segment) {
+        for (ParsedTableRow row : segment) {
+            if (!row.hasBounds()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts leading rows of segment which repeat leading rows of open table.
+     */
+    private int countRepeatedHeaderRows(List<ParsedTableRow> segment) {
+        List<ParsedTableRow> tableRows = openTable.getRows();
+        int limit = Math.min(maxHeaderRows, Math.min(segment.size(), tableRows.size()));
+        int count = 0;
+        while (count < limit && sameCells(segment.get(count), tableRows.get(count))) {
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean sameCells(ParsedTableRow a, ParsedTableRow b) {
+        if (a.getCells().size() != b.getCells().size()) {
+            return false;
+        }
+        for (int i = 0; i < a.getCells().size(); i++) {
+            if (!normalize(a.getCell(i)).equals(normalize(b.getCell(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String text) {
+        return text.replaceAll("[\\s\\u00A0]+", " ").trim();
+    }
+
+    private static ParsedTableRow getWidestRow(List<ParsedTableRow> rows) {
+        ParsedTableRow widest = null;
+        for (ParsedTableRow row : rows) {
+            if (widest == null || row.getCells().size() > widest.getCells().size()) {
+                widest = row;
+            }
+        }
+        return widest;
+    }
+}
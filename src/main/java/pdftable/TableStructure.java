@@ -0,0 +1,194 @@
+package pdftable;
+
+import org.opencv.core.Rect;
+import pdftable.models.ParsedTablePage.ParsedTableRow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Groups cell rectangles of single page into tables and determines grid position and spans of each cell.
+ * <p>
+ * Rectangles which touch each other (within tolerance) are clustered into one table. Column and row grid lines
+ * of each table are derived from clustered cell edges; merged cells span several grid lines.
+ */
+class TableStructure {
+
+    private final int[][] rowLayouts;
+    private final int[] tableRows;
+    private final int[] tableColumns;
+
+    /**
+     * @param sortedRects rectangles grouped by row
+     * @param tolerance   maximal distance of touching cells and of edges lying on the same grid line, in pixels
+     */
+    TableStructure(List<List<Rect>> sortedRects, int tolerance) {
+        List<Rect> rects = new ArrayList<>();
+        for (List<Rect> row : sortedRects) {
+            rects.addAll(row);
+        }
+
+        int[] table = clusterConnected(rects, tolerance);
+        int tableCount = 0;
+        for (int t : table) {
+            tableCount = Math.max(tableCount, t + 1);
+        }
+
+        // grid lines of each table
+        int[][] xLines = new int[tableCount][];
+        int[][] yLines = new int[tableCount][];
+        tableRows = new int[tableCount];
+        tableColumns = new int[tableCount];
+        for (int t = 0; t < tableCount; t++) {
+            List<Integer> xs = new ArrayList<>();
+            List<Integer> ys = new ArrayList<>();
+            for (int i = 0; i < rects.size(); i++) {
+                if (table[i] == t) {
+                    Rect r = rects.get(i);
+                    xs.add(r.x);
+                    xs.add(r.x + r.width);
+                    ys.add(r.y);
+                    ys.add(r.y + r.height);
+                }
+            }
+            xLines[t] = clusterEdges(xs, tolerance);
+            yLines[t] = clusterEdges(ys, tolerance);
+            tableColumns[t] = Math.max(1, xLines[t].length - 1);
+            tableRows[t] = Math.max(1, yLines[t].length - 1);
+        }
+
+        rowLayouts = new int[sortedRects.size()][];
+        int i = 0;
+        for (int iRow = 0; iRow < sortedRects.size(); iRow++) {
+            List<Rect> row = sortedRects.get(iRow);
+            int[] layout = new int[row.size() * ParsedTableRow.LAYOUT_SIZE];
+            for (int iCol = 0; iCol < row.size(); iCol++, i++) {
+                Rect r = rects.get(i);
+                int t = table[i];
+                int col = nearestLine(xLines[t], r.x);
+                int gridRow = nearestLine(yLines[t], r.y);
+                int offset = iCol * ParsedTableRow.LAYOUT_SIZE;
+                layout[offset + ParsedTableRow.LAYOUT_TABLE] = t;
+                layout[offset + ParsedTableRow.LAYOUT_ROW] = gridRow;
+                layout[offset + ParsedTableRow.LAYOUT_COLUMN] = col;
+                layout[offset + ParsedTableRow.LAYOUT_ROW_SPAN] = Math.max(1, nearestLine(yLines[t], r.y + r.height) - gridRow);
+                layout[offset + ParsedTableRow.LAYOUT_COLUMN_SPAN] = Math.max(1, nearestLine(xLines[t], r.x + r.width) - col);
+            }
+            rowLayouts[iRow] = layout;
+        }
+    }
+
+    /**
+     * @return table index, grid row, grid column, row span and column span of each cell in row
+     */
+    int[] getRowLayout(int row) {
+        return rowLayouts[row];
+    }
+
+    int getTableCount() {
+        return tableRows.length;
+    }
+
+    int getTableRows(int table) {
+        return tableRows[table];
+    }
+
+    int getTableColumns(int table) {
+        return tableColumns[table];
+    }
+
+    /**
+     * Labels connected rectangles with table indexes using union-find. Candidates are found by sweeping
+     * rectangles sorted by x, so only horizontally overlapping rectangles are compared.
+     *
+     * @return table index of each rectangle, tables numbered in order of their first rectangle
+     */
+    private static int[] clusterConnected(List<Rect> rects, int tolerance) {
+        int n = rects.size();
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+
+        Integer[] byX = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byX[i] = i;
+        }
+        Arrays.sort(byX, Comparator.comparingInt(i -> rects.get(i).x));
+        for (int a = 0; a < n; a++) {
+            Rect ra = rects.get(byX[a]);
+            for (int b = a + 1; b < n; b++) {
+                Rect rb = rects.get(byX[b]);
+                if (rb.x > ra.x + ra.width + tolerance) {
+                    break;
+                }
+                if (rb.y <= ra.y + ra.height + tolerance && ra.y <= rb.y + rb.height + tolerance) {
+                    union(parent, byX[a], byX[b]);
+                }
+            }
+        }
+
+        int[] out = new int[n];
+        int[] rootTable = new int[n];
+        Arrays.fill(rootTable, -1);
+        int tables = 0;
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            if (rootTable[root] == -1) {
+                rootTable[root] = tables++;
+            }
+            out[i] = rootTable[root];
+        }
+        return out;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) {
+            parent[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+
+    /**
+     * Merges edge coordinates lying within tolerance into single grid lines.
+     *
+     * @return sorted grid line coordinates
+     */
+    private static int[] clusterEdges(List<Integer> edges, int tolerance) {
+        int[] sorted = edges.stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] lines = new int[sorted.length];
+        int count = 0;
+        for (int edge : sorted) {
+            if (count == 0 || edge - lines[count - 1] > tolerance) {
+                lines[count++] = edge;
+            }
+        }
+        return Arrays.copyOf(lines, count);
+    }
+
+    private static int nearestLine(int[] lines, int coordinate) {
+        int index = Arrays.binarySearch(lines, coordinate);
+        if (index >= 0) {
+            return index;
+        }
+        int insertion = -index - 1;
+        if (insertion == 0) {
+            return 0;
+        }
+        if (insertion == lines.length) {
+            return lines.length - 1;
+        }
+        return coordinate - lines[insertion - 1] <= lines[insertion] - coordinate ? insertion - 1 : insertion;
+    }
+}
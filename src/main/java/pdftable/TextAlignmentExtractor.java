@@ -0,0 +1,177 @@
+package pdftable;
+
+import org.apache.pdfbox.text.TextPosition;
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Class responsible for determining table cells bounding boxes of tables without rulings, from text layout only.
+ * Page is not rendered and OpenCV is not used.
+ * <p>
+ * Glyphs are clustered into lines by baseline and each line is split into segments at gaps wider than word spacing.
+ * Consecutive lines with at least two segments form a table. Table columns are separated by x ranges
+ * covered by no segment of any table line (empty bins of x-alignment histogram), table rows are its lines.
+ * Every grid position becomes a cell, empty ones included, so that cells of a table touch each other.
+ * <p>
+ * Immutable and thread-safe.
+ */
+class TextAlignmentExtractor {
+
+    // baselines closer than this fraction of font size belong to the same line
+    private static final float LINE_TOLERANCE = 0.5f;
+    // gaps wider than this fraction of font size separate segments, word spacing is about a third of it
+    private static final float SEGMENT_GAP = 1.0f;
+    // lines further apart than this multiple of font size do not belong to the same table
+    private static final float MAX_LINE_DISTANCE = 4.0f;
+    // space around text of outer cells, in PDF points
+    private static final float PADDING = 2.0f;
+    private static final int MIN_ROWS = 2;
+    private static final int MIN_COLUMNS = 2;
+
+    private final PdfTableSettings settings;
+
+    TextAlignmentExtractor(PdfTableSettings settings) {
+        this.settings = settings;
+    }
+
+    private static class Line {
+        final List<TextPosition> glyphs = new ArrayList<>();
+        final List<float[]> segments = new ArrayList<>();
+        float baseline;
+        float size;
+    }
+
+    /**
+     * Extracts table cells bounding rectangles from text positions of single page.
+     *
+     * @param positions text positions of the page
+     * @return cell rectangles in pixels of page rendered with DPI from settings, ordered by rows top to bottom
+     */
+    List<Rect> getTableBoundingRectangles(List<TextPosition> positions) {
+        List<Line> lines = groupLines(positions);
+        List<Rect> out = new ArrayList<>();
+        int first = 0;
+        while (first < lines.size()) {
+            if (lines.get(first).segments.size() < MIN_COLUMNS) {
+                first++;
+                continue;
+            }
+            int end = first + 1;
+            while (end < lines.size() && lines.get(end).segments.size() >= MIN_COLUMNS
+                    && lines.get(end).baseline - lines.get(end - 1).baseline
+                    <= MAX_LINE_DISTANCE * Math.max(lines.get(end).size, lines.get(end - 1).size)) {
+                end++;
+            }
+            if (end - first >= MIN_ROWS) {
+                addTableCells(lines.subList(first, end), out);
+            }
+            first = end;
+        }
+        return out;
+    }
+
+    /**
+     * Clusters non-blank glyphs into lines by baseline and splits lines into segments.
+     *
+     * @param positions text positions
+     * @return lines top to bottom
+     */
+    private static List<Line> groupLines(List<TextPosition> positions) {
+        List<TextPosition> glyphs = new ArrayList<>();
+        for (TextPosition p : positions) {
+            if (!p.getUnicode().trim().isEmpty()) {
+                glyphs.add(p);
+            }
+        }
+        glyphs.sort(Comparator.comparingDouble(TextPosition::getY));
+
+        List<Line> lines = new ArrayList<>();
+        Line line = null;
+        for (TextPosition glyph : glyphs) {
+            float size = getSize(glyph);
+            if (line == null || glyph.getY() - line.baseline > LINE_TOLERANCE * Math.max(size, line.size)) {
+                line = new Line();
+                line.baseline = glyph.getY();
+                lines.add(line);
+            }
+            line.glyphs.add(glyph);
+            line.size = Math.max(line.size, size);
+        }
+
+        for (Line l : lines) {
+            l.glyphs.sort(Comparator.comparingDouble(TextPosition::getX));
+            float[] segment = null;
+            for (TextPosition glyph : l.glyphs) {
+                float x0 = glyph.getX();
+                float x1 = x0 + glyph.getWidth();
+                if (segment == null || x0 - segment[1] > SEGMENT_GAP * l.size) {
+                    segment = new float[]{x0, x1};
+                    l.segments.add(segment);
+                } else {
+                    segment[1] = Math.max(segment[1], x1);
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Builds grid of single table and adds its cells to output.
+     *
+     * @param lines table lines
+     * @param out   output rectangles
+     */
+    private void addTableCells(List<Line> lines, List<Rect> out) {
+        // union of segment x ranges, gaps between merged ranges separate columns
+        List<float[]> segments = new ArrayList<>();
+        for (Line line : lines) {
+            segments.addAll(line.segments);
+        }
+        segments.sort(Comparator.comparingDouble(s -> s[0]));
+        List<float[]> columns = new ArrayList<>();
+        for (float[] segment : segments) {
+            float[] last = columns.isEmpty() ? null : columns.get(columns.size() - 1);
+            if (last == null || segment[0] > last[1]) {
+                columns.add(new float[]{segment[0], segment[1]});
+            } else {
+                last[1] = Math.max(last[1], segment[1]);
+            }
+        }
+        if (columns.size() < MIN_COLUMNS) {
+            return;
+        }
+
+        int[] xs = new int[columns.size() + 1];
+        xs[0] = Math.max(0, toPixels(columns.get(0)[0] - PADDING));
+        for (int c = 1; c < columns.size(); c++) {
+            xs[c] = toPixels((columns.get(c - 1)[1] + columns.get(c)[0]) / 2);
+        }
+        xs[columns.size()] = toPixels(columns.get(columns.size() - 1)[1] + PADDING);
+
+        // rows are split half way between baselines, so that baselines stay well inside of cells
+        int[] ys = new int[lines.size() + 1];
+        ys[0] = Math.max(0, toPixels(lines.get(0).baseline - lines.get(0).size - PADDING));
+        for (int r = 1; r < lines.size(); r++) {
+            ys[r] = toPixels((lines.get(r - 1).baseline + lines.get(r).baseline) / 2);
+        }
+        Line last = lines.get(lines.size() - 1);
+        ys[lines.size()] = toPixels(last.baseline + Math.max(last.size / 2, PADDING));
+
+        for (int r = 0; r < lines.size(); r++) {
+            for (int c = 0; c < columns.size(); c++) {
+                out.add(new Rect(xs[c], ys[r], xs[c + 1] - xs[c], ys[r + 1] - ys[r]));
+            }
+        }
+    }
+
+    private int toPixels(double points) {
+        return (int) Math.round(points / settings.getDpiRatio());
+    }
+
+    private static float getSize(TextPosition glyph) {
+        return glyph.getFontSizeInPt() > 0 ? glyph.getFontSizeInPt() : glyph.getHeight();
+    }
+}
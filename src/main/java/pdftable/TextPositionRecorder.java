@@ -0,0 +1,49 @@
+package pdftable;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text stripper which only records text positions of single page, in content stream order.
+ * Used to parse page content once and then distribute text positions to several region strippers.
+ */
+class TextPositionRecorder extends PDFTextStripper {
+
+    private final List<TextPosition> positions = new ArrayList<>();
+
+    TextPositionRecorder() throws IOException {
+        super();
+    }
+
+    /**
+     * Parses page content and returns all text positions.
+     *
+     * @param page PDF page
+     * @return text positions in order they were produced
+     * @throws IOException
+     */
+    List<TextPosition> record(PDPage page) throws IOException {
+        positions.clear();
+        setStartPage(getCurrentPageNo());
+        setEndPage(getCurrentPageNo());
+        if (page.hasContents()) {
+            processPage(page);
+        }
+        return positions;
+    }
+
+    @Override
+    protected void processTextPosition(TextPosition text) {
+        positions.add(text);
+    }
+
+    @Override
+    protected void writePage() {
+        // nothing to write, positions are only recorded
+    }
+}
@@ -1,12 +1,14 @@
 package pdftable;
 
 import org.apache.pdfbox.io.IOUtils;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfByte;
 import org.opencv.imgcodecs.Imgcodecs;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -21,7 +23,7 @@ public class Utils {
     }
 
     /**
-     * Converts InputStream to OpenCV Mat
+     * Converts InputStream to OpenCV Mat. Loads OpenCV native library on first use.
      *
      * @param stream Input stream
      * @param flag   org.opencv.imgcodecs.Imgcodecs flag
@@ -29,6 +31,7 @@ public class Utils {
      * @throws IOException
      */
     public static Mat inputStream2Mat(InputStream stream, int flag) throws IOException {
+        OpenCvLoader.load();
         byte[] byteBuff = IOUtils.toByteArray(stream);
         return Imgcodecs.imdecode(new MatOfByte(byteBuff), flag);
     }
@@ -69,4 +72,33 @@ public class Utils {
         return bufferedImage2Mat(inImg, Imgcodecs.IMREAD_GRAYSCALE);
     }
 
+    /**
+     * Converts RGB BufferedImage to grayscaled OpenCV Mat without intermediate PNG encoding.
+     * Gray levels are the same as those of {@link #bufferedImage2GrayscaleMat(BufferedImage)}:
+     * fixed point 0.299/0.587/0.114 weights of PNG grayscale decoding, gray pixels are kept unchanged.
+     *
+     * @param inImg  Buffered Image of type TYPE_INT_RGB
+     * @param pixels gray pixels buffer, at least width * height bytes long
+     * @param out    destination Mat, reallocated only when its size or type differ
+     * @return out
+     */
+    public static Mat rgbImage2GrayscaleMat(BufferedImage inImg, byte[] pixels, Mat out) {
+        if (inImg.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("unsupported image type " + inImg.getType());
+        }
+        OpenCvLoader.load();
+        int width = inImg.getWidth();
+        int height = inImg.getHeight();
+        int[] rgb = ((DataBufferInt) inImg.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < width * height; i++) {
+            int r = (rgb[i] >> 16) & 0xff;
+            int g = (rgb[i] >> 8) & 0xff;
+            int b = rgb[i] & 0xff;
+            pixels[i] = (byte) (r == g && g == b ? r : (r * 9797 + g * 19234 + b * 3737) >> 15);
+        }
+        out.create(height, width, CvType.CV_8UC1);
+        out.put(0, 0, pixels);
+        return out;
+    }
+
 }
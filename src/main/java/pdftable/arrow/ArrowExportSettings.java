@@ -0,0 +1,70 @@
+package pdftable.arrow;
+
+/**
+ * Arrow export settings.
+ */
+public class ArrowExportSettings {
+
+    public static class ArrowExportSettingsBuilder {
+
+        // --------------
+        // DEFAULT VALUES
+        // --------------
+
+        // BATCHING
+        private int batchSize = 64 * 1024;
+
+        // COLUMNS
+        private boolean numericValues = false;
+
+        /**
+         * @param batchSize maximal number of cells in one record batch, pages may span batches
+         */
+        public ArrowExportSettingsBuilder setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param numericValues add nullable {@code number} column holding value of cells which contain number
+         */
+        public ArrowExportSettingsBuilder setNumericValues(boolean numericValues) {
+            this.numericValues = numericValues;
+            return this;
+        }
+
+        public ArrowExportSettings build() {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batch size must be positive");
+            }
+            return new ArrowExportSettings(this);
+        }
+    }
+
+    // BATCHING
+    private final int batchSize;
+
+    // COLUMNS
+    private final boolean numericValues;
+
+    private ArrowExportSettings(ArrowExportSettingsBuilder builder) {
+        this.batchSize = builder.batchSize;
+        this.numericValues = builder.numericValues;
+    }
+
+    public ArrowExportSettings() {
+        this(new ArrowExportSettingsBuilder());
+    }
+
+    public static ArrowExportSettingsBuilder getBuilder() {
+        return new ArrowExportSettingsBuilder();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public boolean hasNumericValues() {
+        return numericValues;
+    }
+}
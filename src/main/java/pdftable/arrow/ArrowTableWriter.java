@@ -0,0 +1,348 @@
+package pdftable.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.message.ArrowBlock;
+import org.apache.arrow.vector.ipc.message.ArrowDictionaryBatch;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import pdftable.ParsedTablePageConsumer;
+import pdftable.models.ParsedTablePage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes parsed pages in Arrow IPC stream format, one row per cell, as pages come out of the reader:
+ * <pre>
+ * page         int32    page number (first page == 1)
+ * row          int32    row index within page
+ * cell         int32    cell index within row
+ * table        int32    table index within page, null when cell layout is not known
+ * grid_row     int32    row of cell within table grid, null when cell layout is not known
+ * grid_column  int32    column of cell within table grid, null when cell layout is not known
+ * row_span     int32    number of grid rows spanned by cell, null when cell layout is not known
+ * column_span  int32    number of grid columns spanned by cell, null when cell layout is not known
+ * text         utf8     cell text, dictionary encoded
+ * number       float64  numeric value of cell text, null when text is not a number (only with numeric values enabled)
+ * </pre>
+ * Cells are appended to reused column vectors and written as record batch whenever batch size is reached.
+ * Text dictionary is shared by the whole stream. Strings of the first batch are written as dictionary together
+ * with schema, strings first seen in later batches as delta dictionary batch right before the batch.
+ * <p>
+ * Usage: {@code reader.parsePdfTablePages(document, startPage, endPage, arrowWriter)}, then {@link #close()}.
+ */
+public class ArrowTableWriter implements ParsedTablePageConsumer, Closeable {
+
+    private static final long TEXT_DICTIONARY_ID = 0;
+
+    private static final Pattern NUMBER = Pattern.compile("\\(?([+-]?)(\\d{1,3}(?:,\\d{3})+|\\d+)?(\\.\\d+)?\\)?");
+
+    /**
+     * Stream writer which writes dictionary batches on demand.
+     */
+    private static class DeltaDictionaryStreamWriter extends ArrowStreamWriter {
+
+        private boolean aborted;
+
+        DeltaDictionaryStreamWriter(VectorSchemaRoot root, DictionaryProvider provider, OutputStream out) {
+            super(root, provider, Channels.newChannel(out));
+        }
+
+        /**
+         * Closes output of failed stream without writing anything more. {@link #close()} would try to end the stream,
+         * and initial dictionary is released by ArrowWriter only when it is written, so it is "written" here
+         * with writes suppressed.
+         */
+        void abort() throws IOException {
+            aborted = true;
+            try {
+                writeBatch();
+            } finally {
+                out.close();
+            }
+        }
+
+        @Override
+        protected ArrowBlock writeDictionaryBatch(ArrowDictionaryBatch batch) throws IOException {
+            return aborted ? null : super.writeDictionaryBatch(batch);
+        }
+
+        @Override
+        protected ArrowBlock writeRecordBatch(ArrowRecordBatch batch) throws IOException {
+            return aborted ? null : super.writeRecordBatch(batch);
+        }
+
+        void writeDelta(long id, FieldVector delta) throws IOException {
+            VectorSchemaRoot deltaRoot = new VectorSchemaRoot(Collections.singletonList(delta));
+            deltaRoot.setRowCount(delta.getValueCount());
+            try (ArrowRecordBatch batch = new VectorUnloader(deltaRoot).getRecordBatch();
+                 ArrowDictionaryBatch dictionaryBatch = new ArrowDictionaryBatch(id, batch, true)) {
+                writeDictionaryBatch(dictionaryBatch);
+            }
+        }
+    }
+
+    private final ArrowExportSettings settings;
+    private final BufferAllocator allocator;
+
+    private final IntVector page;
+    private final IntVector row;
+    private final IntVector cell;
+    private final IntVector table;
+    private final IntVector gridRow;
+    private final IntVector gridColumn;
+    private final IntVector rowSpan;
+    private final IntVector columnSpan;
+    private final IntVector text;
+    private final Float8Vector number;
+    private final VectorSchemaRoot root;
+
+    // strings added to dictionary since last batch
+    private final VarCharVector dictionaryDelta;
+    private final DictionaryEncoding textEncoding;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private int dictionaryDeltaStart;
+
+    private final OutputStream out;
+    // created with first batch, as stream writer takes initial dictionary when created
+    private DeltaDictionaryStreamWriter writer;
+    private int batchRows;
+    private long rowCount;
+    private long batchCount;
+
+    /**
+     * @param out      output stream, closed when writer is closed
+     * @param settings export settings
+     */
+    public ArrowTableWriter(OutputStream out, ArrowExportSettings settings) {
+        this.out = out;
+        this.settings = settings;
+        this.allocator = new RootAllocator();
+        // vectors allocated so far, released when allocation of others fails
+        List<FieldVector> allocated = new ArrayList<>();
+        try {
+            this.textEncoding = new DictionaryEncoding(TEXT_DICTIONARY_ID, false, new ArrowType.Int(32, true));
+            this.dictionaryDelta = track(allocated, new VarCharVector("text", allocator));
+            this.dictionaryDelta.allocateNew();
+            this.dictionaryDelta.setValueCount(0);
+
+            this.page = track(allocated, intVector("page", false));
+            this.row = track(allocated, intVector("row", false));
+            this.cell = track(allocated, intVector("cell", false));
+            this.table = track(allocated, intVector("table", true));
+            this.gridRow = track(allocated, intVector("grid_row", true));
+            this.gridColumn = track(allocated, intVector("grid_column", true));
+            this.rowSpan = track(allocated, intVector("row_span", true));
+            this.columnSpan = track(allocated, intVector("column_span", true));
+            this.text = track(allocated,
+                    new IntVector(new Field("text", new FieldType(false, new ArrowType.Int(32, true), textEncoding), null), allocator));
+            this.number = settings.hasNumericValues()
+                    ? track(allocated, new Float8Vector(new Field("number", FieldType.nullable(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE)), null), allocator))
+                    : null;
+
+            List<FieldVector> vectors = new ArrayList<>();
+            Collections.addAll(vectors, page, row, cell, table, gridRow, gridColumn, rowSpan, columnSpan, text);
+            if (number != null) {
+                vectors.add(number);
+            }
+            for (FieldVector vector : vectors) {
+                vector.allocateNew();
+            }
+            this.root = new VectorSchemaRoot(vectors);
+        } catch (RuntimeException | Error e) {
+            try {
+                for (FieldVector vector : allocated) {
+                    vector.close();
+                }
+                allocator.close();
+            } catch (RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    private static <V extends FieldVector> V track(List<FieldVector> allocated, V vector) {
+        allocated.add(vector);
+        return vector;
+    }
+
+    private IntVector intVector(String name, boolean nullable) {
+        return new IntVector(new Field(name, new FieldType(nullable, new ArrowType.Int(32, true), null), null), allocator);
+    }
+
+    @Override
+    public void accept(ParsedTablePage parsedPage) throws IOException {
+        List<ParsedTablePage.ParsedTableRow> rows = parsedPage.getRows();
+        for (int iRow = 0; iRow < rows.size(); iRow++) {
+            ParsedTablePage.ParsedTableRow parsedRow = rows.get(iRow);
+            List<String> cells = parsedRow.getCells();
+            for (int iCell = 0; iCell < cells.size(); iCell++) {
+                int i = batchRows;
+                page.setSafe(i, parsedPage.getPageNum());
+                row.setSafe(i, iRow);
+                cell.setSafe(i, iCell);
+                if (parsedRow.hasLayout()) {
+                    table.setSafe(i, parsedRow.getCellTable(iCell));
+                    gridRow.setSafe(i, parsedRow.getCellGridRow(iCell));
+                    gridColumn.setSafe(i, parsedRow.getCellGridColumn(iCell));
+                    rowSpan.setSafe(i, parsedRow.getCellRowSpan(iCell));
+                    columnSpan.setSafe(i, parsedRow.getCellColumnSpan(iCell));
+                } else {
+                    table.setNull(i);
+                    gridRow.setNull(i);
+                    gridColumn.setNull(i);
+                    rowSpan.setNull(i);
+                    columnSpan.setNull(i);
+                }
+                String value = cells.get(iCell);
+                text.setSafe(i, getDictionaryIndex(value));
+                if (number != null) {
+                    Double parsed = parseNumber(value);
+                    if (parsed == null) {
+                        number.setNull(i);
+                    } else {
+                        number.setSafe(i, parsed);
+                    }
+                }
+                batchRows++;
+                rowCount++;
+                if (batchRows == settings.getBatchSize()) {
+                    writeBatch();
+                }
+            }
+        }
+    }
+
+    private int getDictionaryIndex(String value) {
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(value, index);
+            dictionaryDelta.setSafe(index - dictionaryDeltaStart, value.getBytes(StandardCharsets.UTF_8));
+        }
+        return index;
+    }
+
+    private void writeBatch() throws IOException {
+        dictionaryDelta.setValueCount(dictionary.size() - dictionaryDeltaStart);
+        if (writer == null) {
+            startStream();
+        } else if (dictionaryDelta.getValueCount() > 0) {
+            writer.writeDelta(TEXT_DICTIONARY_ID, dictionaryDelta);
+        }
+        root.setRowCount(batchRows);
+        // initial dictionary is written together with first batch
+        writer.writeBatch();
+        batchCount++;
+
+        // vectors keep their buffers for next batch
+        for (FieldVector vector : root.getFieldVectors()) {
+            vector.reset();
+        }
+        dictionaryDelta.reset();
+        dictionaryDeltaStart = dictionary.size();
+        batchRows = 0;
+    }
+
+    /**
+     * Writes schema, followed by dictionary of strings collected so far.
+     */
+    private void startStream() throws IOException {
+        DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider(new Dictionary(dictionaryDelta, textEncoding));
+        writer = new DeltaDictionaryStreamWriter(root, provider, out);
+        writer.start();
+    }
+
+    /**
+     * @return number of cells written so far
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return number of record batches written so far
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Writes remaining cells and end of stream marker, closes output stream.
+     * Output stream and Arrow buffers are released even when writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        boolean ended = false;
+        try {
+            if (batchRows > 0) {
+                writeBatch();
+            }
+            if (writer == null) {
+                startStream();
+            }
+            writer.end();
+            ended = true;
+        } finally {
+            try {
+                if (writer == null) {
+                    out.close();
+                } else if (ended) {
+                    writer.close();
+                } else {
+                    writer.abort();
+                }
+            } finally {
+                root.close();
+                dictionaryDelta.close();
+                allocator.close();
+            }
+        }
+    }
+
+    /**
+     * Parses cell text as number. Accepts optional sign, thousands separated by commas, decimal point
+     * and negative value in parentheses (as in financial statements), surrounding whitespace is ignored.
+     *
+     * @return numeric value, null when text is not a number
+     */
+    static Double parseNumber(String text) {
+        String trimmed = text.trim();
+        Matcher m = NUMBER.matcher(trimmed);
+        if (trimmed.isEmpty() || !m.matches() || (m.group(2) == null && m.group(3) == null)) {
+            return null;
+        }
+        boolean parentheses = trimmed.startsWith("(");
+        if (parentheses != trimmed.endsWith(")") || (parentheses && !m.group(1).isEmpty())) {
+            return null;
+        }
+        String digits = (m.group(2) == null ? "0" : m.group(2).replace(",", "")) + (m.group(3) == null ? "" : m.group(3));
+        double value = Double.parseDouble(digits);
+        return parentheses || "-".equals(m.group(1)) ? -value : value;
+    }
+}
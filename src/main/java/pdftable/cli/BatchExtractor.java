@@ -0,0 +1,464 @@
+package pdftable.cli;
+
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import pdftable.ParsedTablePageConsumer;
+import pdftable.PdfTableReader;
+import pdftable.PdfTableSettings;
+import pdftable.arrow.ArrowExportSettings;
+import pdftable.arrow.ArrowTableWriter;
+import pdftable.metrics.LatencyRecorder;
+import pdftable.models.ParsedTablePage;
+import pdftable.shard.ShardCoordinator;
+import pdftable.shard.ShardQueue;
+import pdftable.shard.ShardSettings;
+import pdftable.shard.ShardWorker;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Extracts tables from single PDF file or from all PDF files in directory tree, writing one output file per document.
+ * Processed documents are recorded in manifest stored in output directory, so interrupted run can be resumed.
+ */
+public class BatchExtractor {
+
+    static final String MANIFEST_FILENAME = ".pdf-table-manifest";
+
+    static final int DEFAULT_IO_PARALLELISM = 16;
+
+    // batch output is meant for analytics, numeric values are extracted up front
+    private static final ArrowExportSettings ARROW_SETTINGS = ArrowExportSettings.getBuilder().setNumericValues(true).build();
+
+    /**
+     * Document selected for processing.
+     */
+    static class PendingDocument {
+        private final Path document;
+        private final String relative;
+        private final Path output;
+        private final String fingerprint;
+
+        PendingDocument(Path document, String relative, Path output, String fingerprint) {
+            this.document = document;
+            this.relative = relative;
+            this.output = output;
+            this.fingerprint = fingerprint;
+        }
+
+        String getRelative() {
+            return relative;
+        }
+    }
+
+    private final PdfTableReader reader;
+    private final OutputFormat format;
+    private final int threads;
+    private final PrintStream log;
+    private final ExecutionMode mode;
+    private final int ioParallelism;
+    private final DocumentStore store;
+
+    /**
+     * @param settings extraction settings
+     * @param format   output format
+     * @param threads  number of documents processed in parallel
+     * @param log      progress log, may be null
+     */
+    public BatchExtractor(PdfTableSettings settings, OutputFormat format, int threads, PrintStream log) {
+        this(settings, format, threads, log, ExecutionMode.DOCUMENT_PER_THREAD, DEFAULT_IO_PARALLELISM);
+    }
+
+    /**
+     * @param settings      extraction settings
+     * @param format        output format
+     * @param threads       number of documents processed in parallel, i.e. number of parsing threads in split I/O mode
+     * @param log           progress log, may be null
+     * @param mode          scheduling of document I/O and parsing
+     * @param ioParallelism maximal number of concurrent document reads (and writes) in split I/O mode
+     */
+    public BatchExtractor(PdfTableSettings settings, OutputFormat format, int threads, PrintStream log,
+                          ExecutionMode mode, int ioParallelism) {
+        this(settings, format, threads, log, mode, ioParallelism, DocumentStore.FILE_SYSTEM);
+    }
+
+    BatchExtractor(PdfTableSettings settings, OutputFormat format, int threads, PrintStream log,
+                   ExecutionMode mode, int ioParallelism, DocumentStore store) {
+        this.reader = new PdfTableReader(settings);
+        this.format = format;
+        this.threads = threads;
+        this.log = log;
+        this.mode = mode;
+        this.ioParallelism = ioParallelism;
+        this.store = store;
+    }
+
+    /**
+     * Extracts tables from input file or directory tree.
+     *
+     * @param input     PDF file or directory
+     * @param outputDir output directory
+     * @param force     when true, documents already present in manifest are processed again
+     * @return run summary
+     * @throws IOException when input cannot be listed or manifest cannot be read
+     */
+    public BatchSummary run(Path input, Path outputDir, boolean force) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(outputDir);
+        Path manifestPath = outputDir.resolve(MANIFEST_FILENAME);
+        Map<String, String> manifest = force ? new HashMap<>() : readManifest(manifestPath);
+
+        Path root = Files.isDirectory(input) ? input : input.toAbsolutePath().getParent();
+        List<Path> documents = listDocuments(input);
+
+        List<PendingDocument> pending = new ArrayList<>();
+        int skipped = 0;
+        for (Path document : documents) {
+            String relative = root.relativize(document.toAbsolutePath()).toString().replace('\\', '/');
+            Path output = outputDir.resolve(relative + "." + format.getExtension());
+            String fingerprint = fingerprint(document);
+            if (fingerprint.equals(manifest.get(relative)) && Files.exists(output)) {
+                skipped++;
+                continue;
+            }
+            pending.add(new PendingDocument(document, relative, output, fingerprint));
+        }
+
+        LatencyRecorder pageLatency = new LatencyRecorder();
+        AtomicLong pages = new AtomicLong();
+        try (Writer manifestWriter = Files.newBufferedWriter(manifestPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, force ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND)) {
+            int processed = mode == ExecutionMode.SPLIT_IO
+                    ? runSplitIo(pending, manifestWriter, pageLatency, pages)
+                    : runDocumentPerThread(pending, manifestWriter, pageLatency, pages);
+            // all parsing threads are done, their page buffers are not needed any more
+            reader.close();
+            return new BatchSummary(processed, skipped, pending.size() - processed, pages.get(), System.nanoTime() - start, pageLatency);
+        }
+    }
+
+    /**
+     * Processes each document by single thread of fixed pool.
+     *
+     * @return number of successfully processed documents
+     */
+    private int runDocumentPerThread(List<PendingDocument> pending, Writer manifestWriter,
+                                     LatencyRecorder pageLatency, AtomicLong pages) throws IOException {
+        List<Future<Boolean>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (PendingDocument document : pending) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        long docPages = processDocument(document.document, document.relative, document.output, pageLatency);
+                        pages.addAndGet(docPages);
+                        recordCompleted(document, docPages, manifestWriter);
+                        return true;
+                    } catch (Exception e) {
+                        log("failed " + document.relative + ": " + e);
+                        return false;
+                    }
+                }));
+            }
+
+            int processed = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    if (futures.get(i).get()) {
+                        processed++;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                } catch (ExecutionException e) {
+                    // errors are not caught by task
+                    log("failed " + pending.get(i).relative + ": " + e.getCause());
+                }
+            }
+            return processed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads documents and writes outputs by I/O tasks while fixed pool of threads only parses,
+     * see {@link SplitIoPipeline}.
+     *
+     * @return number of successfully processed documents
+     */
+    private int runSplitIo(List<PendingDocument> pending, Writer manifestWriter,
+                           LatencyRecorder pageLatency, AtomicLong pages) throws IOException {
+        SplitIoPipeline pipeline = new SplitIoPipeline(threads, ioParallelism, 2 * threads, log);
+        return pipeline.run(pending,
+                item -> {
+                    try (InputStream in = store.open(item.document.document)) {
+                        Files.copy(in, item.input);
+                    }
+                },
+                item -> {
+                    try (PDDocument pdf = PDDocument.load(item.input.toFile());
+                         OutputStream output = new BufferedOutputStream(Files.newOutputStream(item.output))) {
+                        item.pages = writeDocument(item.document.relative, output, consumer -> {
+                            long[] pageStart = {System.nanoTime()};
+                            reader.parsePdfTablePages(pdf, 1, pdf.getNumberOfPages(), page -> {
+                                pageLatency.record(System.nanoTime() - pageStart[0]);
+                                consumer.accept(page);
+                                pageStart[0] = System.nanoTime();
+                            });
+                        });
+                    }
+                    Files.delete(item.input);
+                },
+                item -> {
+                    writeOutput(item.document.output, out -> Files.copy(item.output, out));
+                    pages.addAndGet(item.pages);
+                    recordCompleted(item.document, item.pages, manifestWriter);
+                });
+    }
+
+    private void recordCompleted(PendingDocument document, long docPages, Writer manifestWriter) throws IOException {
+        synchronized (manifestWriter) {
+            manifestWriter.write(document.relative + "\t" + document.fingerprint + "\n");
+            manifestWriter.flush();
+        }
+        log("done " + document.relative + " (" + docPages + " pages)");
+    }
+
+    /**
+     * Extracts tables from input file or directory tree as coordinator of sharded extraction.
+     * Documents are split into shards submitted to shared queue, shards are processed by this process
+     * together with any {@link ShardWorker}s sharing the queue, and merged results are written to output directory.
+     * Manifest is not used, documents completed in previous interrupted run are reused from the queue instead,
+     * and shards which failed in previous run are retried.
+     *
+     * @param input     PDF file or directory, must be accessible to all workers under the same path
+     * @param outputDir output directory
+     * @param queue     shared shard queue
+     * @param settings  sharding settings
+     * @return run summary
+     * @throws IOException when input cannot be listed or queue cannot be accessed
+     */
+    public BatchSummary runSharded(Path input, Path outputDir, ShardQueue queue, ShardSettings settings) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(outputDir);
+        Path root = Files.isDirectory(input) ? input : input.toAbsolutePath().getParent();
+        ShardCoordinator coordinator = new ShardCoordinator(queue, reader.getSettings(), settings);
+
+        Map<Path, String> jobs = new LinkedHashMap<>();
+        int failed = 0;
+        for (Path document : listDocuments(input)) {
+            try {
+                jobs.put(document, coordinator.submit(document));
+            } catch (IOException e) {
+                log("failed " + document + ": " + e);
+                failed++;
+            }
+        }
+        log("submitted " + jobs.size() + " documents");
+        new ShardWorker(queue, reader, settings, ShardWorker.getDefaultWorkerId(), threads, log).run();
+        reader.close();
+
+        int processed = 0;
+        long pages = 0;
+        for (Map.Entry<Path, String> job : jobs.entrySet()) {
+            String relative = root.relativize(job.getKey().toAbsolutePath()).toString().replace('\\', '/');
+            Path output = outputDir.resolve(relative + "." + format.getExtension());
+            try {
+                long docPages = writeDocument(relative, output, consumer -> coordinator.merge(job.getValue(), consumer));
+                coordinator.remove(job.getValue());
+                pages += docPages;
+                processed++;
+                log("done " + relative + " (" + docPages + " pages)");
+            } catch (IOException e) {
+                log("failed " + relative + ": " + e.getMessage());
+                failed++;
+            }
+        }
+        return new BatchSummary(processed, 0, failed, pages, System.nanoTime() - start, new LatencyRecorder());
+    }
+
+    /**
+     * Parses single document and writes output file. Output is written to temporary file first,
+     * so partially written outputs never appear under final name.
+     *
+     * @return number of parsed pages
+     */
+    private long processDocument(Path document, String relative, Path output, LatencyRecorder pageLatency) throws IOException {
+        try (PDDocument pdf = store.load(document)) {
+            return writeDocument(relative, output, consumer -> {
+                long[] pageStart = {System.nanoTime()};
+                reader.parsePdfTablePages(pdf, 1, pdf.getNumberOfPages(), page -> {
+                    pageLatency.record(System.nanoTime() - pageStart[0]);
+                    consumer.accept(page);
+                    pageStart[0] = System.nanoTime();
+                });
+            });
+        }
+    }
+
+    private interface PageSource {
+        void pages(ParsedTablePageConsumer consumer) throws IOException;
+    }
+
+    /**
+     * Writes pages of single document to output file, through temporary file.
+     *
+     * @return number of written pages
+     */
+    private long writeDocument(String relative, Path output, PageSource source) throws IOException {
+        return writeOutput(output, out -> writeDocument(relative, out, source));
+    }
+
+    private interface OutputContent {
+        long write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes output file through temporary file, which is moved to output path once complete
+     * and deleted when writing fails.
+     *
+     * @return value returned by content writer
+     */
+    private long writeOutput(Path output, OutputContent content) throws IOException {
+        Files.createDirectories(output.getParent());
+        Path tmp = output.resolveSibling(output.getFileName() + ".tmp");
+        try {
+            long result;
+            try (OutputStream out = new BufferedOutputStream(store.create(tmp))) {
+                result = content.write(out);
+            }
+            Files.move(tmp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return result;
+        } catch (Throwable e) {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes pages of single document in output format.
+     *
+     * @return number of written pages
+     */
+    private long writeDocument(String relative, OutputStream out, PageSource source) throws IOException {
+        long[] count = {0};
+        if (format == OutputFormat.ARROW) {
+            try (ArrowTableWriter writer = new ArrowTableWriter(out, ARROW_SETTINGS)) {
+                source.pages(page -> {
+                    writer.accept(page);
+                    count[0]++;
+                });
+            }
+            return count[0];
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == OutputFormat.JSON) {
+            writer.write("{\"document\":\"" + StringEscapeUtils.escapeJson(relative) + "\",\"pages\":[");
+        }
+        source.pages(page -> {
+            if (format == OutputFormat.JSON) {
+                writeJsonPage(writer, page, count[0] == 0);
+            } else {
+                writeCsvPage(writer, page);
+            }
+            count[0]++;
+        });
+        if (format == OutputFormat.JSON) {
+            writer.write("]}\n");
+        }
+        writer.flush();
+        return count[0];
+    }
+
+    private static void writeJsonPage(Writer writer, ParsedTablePage page, boolean first) throws IOException {
+        if (!first) {
+            writer.write(',');
+        }
+        writer.write(page.toJson());
+    }
+
+    /**
+     * Writes page rows as CSV lines, each line prefixed with page number.
+     */
+    private static void writeCsvPage(Writer writer, ParsedTablePage page) throws IOException {
+        for (ParsedTablePage.ParsedTableRow row : page.getRows()) {
+            writer.write(String.valueOf(page.getPageNum()));
+            for (String cell : row.getCells()) {
+                writer.write(',');
+                writer.write(StringEscapeUtils.escapeCsv(cell));
+            }
+            writer.write('\n');
+        }
+    }
+
+    private static List<Path> listDocuments(Path input) throws IOException {
+        if (!Files.isDirectory(input)) {
+            List<Path> out = new ArrayList<>();
+            out.add(input);
+            return out;
+        }
+        try (Stream<Path> walk = Files.walk(input)) {
+            return walk.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static String fingerprint(Path document) throws IOException {
+        return Files.size(document) + "\t" + Files.getLastModifiedTime(document).toMillis();
+    }
+
+    /**
+     * Reads manifest lines in "relative path TAB size TAB last modified" format.
+     */
+    private static Map<String, String> readManifest(Path manifestPath) throws IOException {
+        Map<String, String> out = new HashMap<>();
+        if (!Files.exists(manifestPath)) {
+            return out;
+        }
+        for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                out.put(line.substring(0, tab), line.substring(tab + 1));
+            }
+        }
+        return out;
+    }
+
+    private void log(String message) {
+        if (log != null) {
+            log.println(message);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package pdftable.cli;
+
+import pdftable.metrics.LatencyRecorder;
+
+import java.util.Locale;
+
+/**
+ * Result of batch extraction run.
+ */
+public class BatchSummary {
+
+    private final int processedDocuments;
+    private final int skippedDocuments;
+    private final int failedDocuments;
+    private final long pages;
+    private final long elapsedNanos;
+    private final double[] pageLatencyPercentiles;
+
+    BatchSummary(int processedDocuments, int skippedDocuments, int failedDocuments, long pages, long elapsedNanos,
+                 LatencyRecorder pageLatency) {
+        this.processedDocuments = processedDocuments;
+        this.skippedDocuments = skippedDocuments;
+        this.failedDocuments = failedDocuments;
+        this.pages = pages;
+        this.elapsedNanos = elapsedNanos;
+        this.pageLatencyPercentiles = pageLatency.getPercentilesMillis(50, 95, 99);
+    }
+
+    public int getProcessedDocuments() {
+        return processedDocuments;
+    }
+
+    public int getSkippedDocuments() {
+        return skippedDocuments;
+    }
+
+    public int getFailedDocuments() {
+        return failedDocuments;
+    }
+
+    public long getPages() {
+        return pages;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1_000_000_000.0;
+    }
+
+    public double getDocumentsPerSecond() {
+        return elapsedNanos > 0 ? processedDocuments / getElapsedSeconds() : 0;
+    }
+
+    public double getPagesPerSecond() {
+        return elapsedNanos > 0 ? pages / getElapsedSeconds() : 0;
+    }
+
+    public double getPageLatencyP50Millis() {
+        return pageLatencyPercentiles[0];
+    }
+
+    public double getPageLatencyP95Millis() {
+        return pageLatencyPercentiles[1];
+    }
+
+    public double getPageLatencyP99Millis() {
+        return pageLatencyPercentiles[2];
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "documents: %d processed, %d skipped, %d failed%n" +
+                        "pages: %d in %.2fs%n" +
+                        "throughput: %.2f documents/s, %.2f pages/s%n" +
+                        "page latency: p50 %.1fms, p95 %.1fms, p99 %.1fms",
+                processedDocuments, skippedDocuments, failedDocuments,
+                pages, getElapsedSeconds(),
+                getDocumentsPerSecond(), getPagesPerSecond(),
+                getPageLatencyP50Millis(), getPageLatencyP95Millis(), getPageLatencyP99Millis());
+    }
+}
@@ -0,0 +1,35 @@
+package pdftable.cli;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Storage access of batch extraction, overridden in tests to simulate slow storage.
+ */
+class DocumentStore {
+
+    static final DocumentStore FILE_SYSTEM = new DocumentStore();
+
+    /**
+     * Opens document for parsing, content is read lazily while parsing.
+     */
+    PDDocument load(Path document) throws IOException {
+        return PDDocument.load(document.toFile());
+    }
+
+    /**
+     * Opens document for sequential reading, e.g. for copying it to local storage.
+     */
+    InputStream open(Path document) throws IOException {
+        return Files.newInputStream(document);
+    }
+
+    OutputStream create(Path output) throws IOException {
+        return Files.newOutputStream(output);
+    }
+}
@@ -0,0 +1,17 @@
+package pdftable.cli;
+
+/**
+ * How batch extraction schedules document I/O and parsing.
+ */
+public enum ExecutionMode {
+    /**
+     * each document is loaded, parsed and written by single thread of fixed pool,
+     * threads are idle while waiting for storage
+     */
+    DOCUMENT_PER_THREAD,
+    /**
+     * documents are read and outputs written by I/O tasks (virtual threads on JDK 21+),
+     * fixed pool of CPU threads only parses, stages are connected by bounded queues
+     */
+    SPLIT_IO
+}
@@ -0,0 +1,15 @@
+package pdftable.cli;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Creates executors for blocking I/O tasks. Implemented by virtual thread backend available on JDK 21+.
+ */
+public interface IoExecutorFactory {
+
+    /**
+     * @param name thread name prefix
+     * @return executor starting new thread for each task
+     */
+    ExecutorService newExecutor(String name);
+}
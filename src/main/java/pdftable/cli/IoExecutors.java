@@ -0,0 +1,56 @@
+package pdftable.cli;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for blocking I/O tasks, e.g. reading documents from and writing results to network storage.
+ * <p>
+ * On JDK 21+ each task runs on its own virtual thread, which does not occupy platform thread while blocked
+ * (implementation is compiled from {@code src/main/java21} when building on JDK 21+).
+ * On older JDKs elastic pool of daemon platform threads is used instead.
+ * Callers are expected to limit number of concurrent tasks themselves.
+ */
+public final class IoExecutors {
+
+    private static final String VIRTUAL_FACTORY = "pdftable.cli.VirtualThreadIoExecutorFactory";
+
+    private static final IoExecutorFactory FACTORY = loadFactory();
+
+    private IoExecutors() {
+    }
+
+    /**
+     * @param name thread name prefix
+     * @return new executor, must be shut down by caller
+     */
+    public static ExecutorService newExecutor(String name) {
+        return FACTORY == null ? newElasticExecutor(name) : FACTORY.newExecutor(name);
+    }
+
+    /**
+     * @return true when I/O tasks run on virtual threads
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return FACTORY != null;
+    }
+
+    private static ExecutorService newElasticExecutor(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, name + "-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static IoExecutorFactory loadFactory() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return (IoExecutorFactory) Class.forName(VIRTUAL_FACTORY).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package pdftable.cli;
+
+/**
+ * Output format of batch extraction.
+ */
+public enum OutputFormat {
+    CSV("csv"),
+    JSON("json"),
+    /**
+     * Arrow IPC stream, one row per cell, see {@link pdftable.arrow.ArrowTableWriter}
+     */
+    ARROW("arrow");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,226 @@
+package pdftable.cli;
+
+
+import pdftable.DetectionMode;
+import pdftable.PdfTableReader;
+import pdftable.PdfTableSettings;
+import pdftable.shard.ShardQueue;
+import pdftable.shard.ShardSettings;
+import pdftable.shard.ShardWorker;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Command line batch extractor.
+ * <p>
+ * Usage: {@code pdf-table [options] <input file or directory> <output directory>}
+ * or {@code pdf-table --queue <directory> --worker [options]}
+ */
+public class PdfTableCli {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: pdf-table [options] <input file or directory> <output directory>",
+            "       pdf-table --queue <directory> --worker [options]",
+            "",
+            "Options:",
+            "  --threads <n>                  documents processed in parallel (default: number of cores)",
+            "  --format <csv|json|arrow>      output format (default: csv)",
+            "  --force                        process documents already listed in manifest",
+            "  --execution <mode>             document-per-thread or split-io (default: document-per-thread)",
+            "  --io-parallelism <n>           concurrent document reads and writes in split-io mode (default: 16)",
+            "  --queue <directory>            shard documents through queue directory shared with workers",
+            "  --worker                       only process shards from queue, no input and output",
+            "  --shard-pages <n>              pages per shard (default: 20)",
+            "  --dpi <n>                      PDF rendering DPI",
+            "  --no-buffer-pooling            allocate rendering buffers for each page",
+            "  --detection <mode>             raster, text-alignment or raster-with-text-fallback (default: raster)",
+            "  --canny                        enable Canny filtering",
+            "  --bit-threshold <x>            binary inverted threshold value",
+            "  --bit-max-val <x>              binary inverted threshold max value",
+            "  --canny-threshold1 <x>         Canny filter threshold 1",
+            "  --canny-threshold2 <x>         Canny filter threshold 2",
+            "  --canny-aperture-size <n>      Canny filter aperture size",
+            "  --canny-l2-gradient            enable Canny L2 gradient",
+            "  --approx-dist-scale-factor <x> bounding rectangle approximation scale factor",
+            "  --parallel-cell-threshold <n>  cell count from which page text is extracted in parallel (0 disables)",
+            "  --parallel-band-count <n>      row bands used for parallel text extraction (default: number of cores)",
+            "  --help                         print this message");
+
+    private PdfTableCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Runs CLI with specified arguments.
+     *
+     * @param args command line arguments
+     * @param out  standard output
+     * @param err  error output
+     * @return process exit code
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        PdfTableSettings.PdfTableSettingsBuilder settings = PdfTableSettings.getBuilder();
+        OutputFormat format = OutputFormat.CSV;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean force = false;
+        ExecutionMode mode = ExecutionMode.DOCUMENT_PER_THREAD;
+        int ioParallelism = BatchExtractor.DEFAULT_IO_PARALLELISM;
+        Path queue = null;
+        boolean worker = false;
+        ShardSettings.ShardSettingsBuilder shardSettingsBuilder = ShardSettings.getBuilder();
+        ShardSettings shardSettings;
+        Path input = null;
+        Path output = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--help":
+                        out.println(USAGE);
+                        return 0;
+                    case "--threads":
+                        threads = Integer.parseInt(value(args, ++i, arg));
+                        break;
+                    case "--format":
+                        format = OutputFormat.valueOf(value(args, ++i, arg).toUpperCase(Locale.ROOT));
+                        break;
+                    case "--force":
+                        force = true;
+                        break;
+                    case "--execution":
+                        mode = ExecutionMode.valueOf(value(args, ++i, arg).toUpperCase(Locale.ROOT).replace('-', '_'));
+                        break;
+                    case "--io-parallelism":
+                        ioParallelism = Integer.parseInt(value(args, ++i, arg));
+                        break;
+                    case "--queue":
+                        queue = Paths.get(value(args, ++i, arg));
+                        break;
+                    case "--worker":
+                        worker = true;
+                        break;
+                    case "--shard-pages":
+                        shardSettingsBuilder.setPagesPerShard(Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    case "--dpi":
+                        settings.setPdfRenderingDpi(Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    case "--no-buffer-pooling":
+                        settings.setRenderBufferPooling(false);
+                        break;
+                    case "--detection":
+                        settings.setDetectionMode(DetectionMode.valueOf(value(args, ++i, arg).toUpperCase(Locale.ROOT).replace('-', '_')));
+                        break;
+                    case "--canny":
+                        settings.setCannyFiltering(true);
+                        break;
+                    case "--bit-threshold":
+                        settings.setBitThreshold(Double.parseDouble(value(args, ++i, arg)));
+                        break;
+                    case "--bit-max-val":
+                        settings.setBitMaxVal(Double.parseDouble(value(args, ++i, arg)));
+                        break;
+                    case "--canny-threshold1":
+                        settings.setCannyThreshold1(Double.parseDouble(value(args, ++i, arg)));
+                        break;
+                    case "--canny-threshold2":
+                        settings.setCannyThreshold2(Double.parseDouble(value(args, ++i, arg)));
+                        break;
+                    case "--canny-aperture-size":
+                        settings.setCannyApertureSize(Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    case "--canny-l2-gradient":
+                        settings.setCannyL2Gradient(true);
+                        break;
+                    case "--approx-dist-scale-factor":
+                        settings.setApproxDistScaleFactor(Double.parseDouble(value(args, ++i, arg)));
+                        break;
+                    case "--parallel-cell-threshold":
+                        settings.setParallelCellThreshold(Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    case "--parallel-band-count":
+                        settings.setParallelBandCount(Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    default:
+                        if (arg.startsWith("--")) {
+                            throw new IllegalArgumentException("unknown option " + arg);
+                        } else if (input == null) {
+                            input = Paths.get(arg);
+                        } else if (output == null) {
+                            output = Paths.get(arg);
+                        } else {
+                            throw new IllegalArgumentException("unexpected argument " + arg);
+                        }
+                }
+            }
+            if (worker) {
+                if (queue == null || input != null) {
+                    throw new IllegalArgumentException("worker requires queue and no input");
+                }
+            } else if (input == null || output == null) {
+                throw new IllegalArgumentException("input and output directory are required");
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException("thread count must be positive");
+            }
+            if (ioParallelism < 1) {
+                throw new IllegalArgumentException("I/O parallelism must be positive");
+            }
+            if (format == OutputFormat.ARROW && !isArrowAvailable()) {
+                throw new IllegalArgumentException("Arrow export requires org.apache.arrow:arrow-vector on the classpath");
+            }
+            shardSettings = shardSettingsBuilder.build();
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+
+        try {
+            if (worker) {
+                try (PdfTableReader reader = new PdfTableReader(settings.build())) {
+                    ShardWorker shardWorker = new ShardWorker(new ShardQueue(queue), reader,
+                            shardSettings, ShardWorker.getDefaultWorkerId(), threads, out);
+                    out.println("completed " + shardWorker.run() + " shards");
+                }
+                return 0;
+            }
+            BatchExtractor extractor = new BatchExtractor(settings.build(), format, threads, out, mode, ioParallelism);
+            BatchSummary summary = queue == null
+                    ? extractor.run(input, output, force)
+                    : extractor.runSharded(input, output, new ShardQueue(queue), shardSettings);
+            out.println(summary);
+            return summary.getFailedDocuments() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            err.println(e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * @return true when optional Arrow dependency is on the classpath
+     */
+    private static boolean isArrowAvailable() {
+        try {
+            Class.forName("org.apache.arrow.vector.VectorSchemaRoot", false, PdfTableCli.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("missing value for " + option);
+        }
+        return args[index];
+    }
+}
@@ -0,0 +1,214 @@
+package pdftable.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Batch extraction with document I/O separated from parsing, see {@link ExecutionMode#SPLIT_IO}.
+ * <pre>
+ * read (I/O tasks) -&gt; loaded queue -&gt; parse (CPU threads) -&gt; parsed queue -&gt; write (I/O tasks)
+ * </pre>
+ * Documents are staged in local temporary directory: read copies document to local file, parse reads it
+ * from there and streams formatted output to another local file, write copies output to its destination.
+ * Queues pass only paths, so memory use does not depend on document size. Queues are bounded and number
+ * of concurrent reads and writes is limited, so at most about {@code 2 * (ioParallelism + queueCapacity) + cpuThreads}
+ * documents are staged at once.
+ */
+class SplitIoPipeline {
+
+    /**
+     * Document passing through pipeline with its local staging files.
+     */
+    static class Item {
+        final BatchExtractor.PendingDocument document;
+        // local copy of document, written by read stage
+        final Path input;
+        // formatted output, written by parse stage
+        final Path output;
+        long pages;
+        Throwable error;
+
+        Item(BatchExtractor.PendingDocument document, Path input, Path output) {
+            this.document = document;
+            this.input = input;
+            this.output = output;
+        }
+
+        void deleteStaged() {
+            deleteQuietly(input);
+            deleteQuietly(output);
+        }
+    }
+
+    interface Stage {
+        void apply(Item item) throws IOException;
+    }
+
+    private static final Item END = new Item(null, null, null);
+
+    private final int cpuThreads;
+    private final int ioParallelism;
+    private final int queueCapacity;
+    private final PrintStream log;
+
+    /**
+     * @param cpuThreads    number of parsing threads
+     * @param ioParallelism maximal number of concurrent reads, and of concurrent writes
+     * @param queueCapacity capacity of queues between stages
+     * @param log           progress log, may be null
+     */
+    SplitIoPipeline(int cpuThreads, int ioParallelism, int queueCapacity, PrintStream log) {
+        this.cpuThreads = cpuThreads;
+        this.ioParallelism = ioParallelism;
+        this.queueCapacity = queueCapacity;
+        this.log = log;
+    }
+
+    /**
+     * Runs documents through pipeline.
+     *
+     * @param documents documents to process
+     * @param read      copies document to item input, runs on I/O thread
+     * @param parse     parses item input and writes formatted output to item output, runs on CPU thread
+     * @param write     copies item output to its destination, runs on I/O thread
+     * @return number of successfully processed documents
+     * @throws IOException when staging directory cannot be created, or when interrupted
+     */
+    int run(List<BatchExtractor.PendingDocument> documents, Stage read, Stage parse, Stage write) throws IOException {
+        Path staging = Files.createTempDirectory("pdf-table-split-io");
+        BlockingQueue<Item> loaded = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Item> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        // separate permits, so that reads blocked on full queue never prevent writes which drain the pipeline
+        Semaphore readPermits = new Semaphore(ioParallelism);
+        Semaphore writePermits = new Semaphore(ioParallelism);
+        AtomicInteger runningParsers = new AtomicInteger(cpuThreads);
+        AtomicInteger processed = new AtomicInteger();
+
+        ExecutorService io = IoExecutors.newExecutor("pdf-table-io");
+        ExecutorService cpu = Executors.newFixedThreadPool(cpuThreads);
+        try {
+            io.execute(() -> {
+                try {
+                    for (int i = 0; i < documents.size(); i++) {
+                        Item toRead = new Item(documents.get(i), staging.resolve(i + ".pdf"), staging.resolve(i + ".out"));
+                        readPermits.acquire();
+                        io.execute(() -> {
+                            try {
+                                loaded.put(apply(read, toRead));
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            } finally {
+                                readPermits.release();
+                            }
+                        });
+                    }
+                    // all reads are finished once all permits are returned
+                    readPermits.acquire(ioParallelism);
+                    for (int i = 0; i < cpuThreads; i++) {
+                        loaded.put(END);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            for (int i = 0; i < cpuThreads; i++) {
+                cpu.execute(() -> {
+                    try {
+                        Item item;
+                        while ((item = loaded.take()) != END) {
+                            parsed.put(item.error == null ? apply(parse, item) : item);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        if (runningParsers.decrementAndGet() == 0) {
+                            try {
+                                parsed.put(END);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    }
+                });
+            }
+
+            Item item;
+            while ((item = parsed.take()) != END) {
+                if (item.error != null) {
+                    log("failed " + item.document.getRelative() + ": " + item.error);
+                    continue;
+                }
+                Item toWrite = item;
+                writePermits.acquire();
+                io.execute(() -> {
+                    try {
+                        if (apply(write, toWrite).error == null) {
+                            processed.incrementAndGet();
+                        } else {
+                            log("failed " + toWrite.document.getRelative() + ": " + toWrite.error);
+                        }
+                        toWrite.deleteStaged();
+                    } finally {
+                        writePermits.release();
+                    }
+                });
+            }
+            writePermits.acquire(ioParallelism);
+            return processed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            cpu.shutdownNow();
+            io.shutdownNow();
+            deleteStaging(staging);
+        }
+    }
+
+    private static Item apply(Stage stage, Item item) {
+        try {
+            stage.apply(item);
+        } catch (Throwable e) {
+            // also linkage errors, item must still reach following stages
+            item.deleteStaged();
+            item.error = e;
+        }
+        return item;
+    }
+
+    /**
+     * Deletes staging directory with files left by interrupted run.
+     */
+    private static void deleteStaging(Path staging) {
+        try (Stream<Path> files = Files.walk(staging)) {
+            files.sorted(Comparator.reverseOrder()).forEach(SplitIoPipeline::deleteQuietly);
+        } catch (IOException e) {
+            // temporary directory, cleaned by OS eventually
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // temporary file, cleaned with staging directory
+        }
+    }
+
+    private void log(String message) {
+        if (log != null) {
+            log.println(message);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package pdftable.debug;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Debug image sink writing images on a background thread.
+ * Images are queued in bounded queue; when queue is full, images are dropped instead of blocking the caller.
+ */
+public class AsyncDebugImageSink implements DebugImageSink {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private static class Entry {
+        private final Path path;
+        private final Mat image;
+
+        private Entry(Path path, Mat image) {
+            this.path = path;
+            this.image = image;
+        }
+    }
+
+    private final BlockingQueue<Entry> queue;
+    private final Thread writer;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * @param capacity maximum number of images waiting to be written
+     */
+    public AsyncDebugImageSink(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::writeLoop, "pdf-table-debug-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public AsyncDebugImageSink() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Enqueues image for writing. Never blocks.
+     *
+     * @param path  output path of PNG image
+     * @param image image to write
+     */
+    @Override
+    public void write(Path path, Mat image) {
+        if (closed || !queue.offer(new Entry(path, image))) {
+            image.release();
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of images written so far
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * @return number of images dropped because queue was full or sink was closed
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops accepting new images, writes all queued images and stops writer thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            entry.image.release();
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void writeLoop() {
+        while (!closed || !queue.isEmpty()) {
+            Entry entry;
+            try {
+                entry = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (entry != null) {
+                try {
+                    Imgcodecs.imwrite(entry.path.toString(), entry.image);
+                    written.incrementAndGet();
+                } finally {
+                    entry.image.release();
+                }
+            }
+        }
+    }
+}
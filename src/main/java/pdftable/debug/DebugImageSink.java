@@ -0,0 +1,28 @@
+package pdftable.debug;
+
+import org.opencv.core.Mat;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+
+/**
+ * Destination for debug images produced during table extraction.
+ */
+public interface DebugImageSink extends Closeable {
+
+    /**
+     * Writes image to specified path. Sink takes ownership of the image and releases it
+     * once it is written or dropped. Implementations must not modify the image.
+     *
+     * @param path  output path of PNG image
+     * @param image image to write
+     */
+    void write(Path path, Mat image);
+
+    /**
+     * Releases sink resources. Default implementation does nothing.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,68 @@
+package pdftable.debug;
+
+import org.opencv.core.Mat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects debug images of single page until it is decided whether page should be written out.
+ */
+public class DebugPageCapture {
+
+    private final Path outputDir;
+    private final String filenamePrefix;
+    private final List<String> suffixes = new ArrayList<>();
+    private final List<Mat> images = new ArrayList<>();
+
+    /**
+     * @param outputDir      directory in which images will be written
+     * @param filenamePrefix prefix of each image filename
+     */
+    public DebugPageCapture(Path outputDir, String filenamePrefix) {
+        this.outputDir = outputDir;
+        this.filenamePrefix = filenamePrefix;
+    }
+
+    /**
+     * Records debug image, capture takes ownership of it. Image must not be modified afterwards.
+     *
+     * @param suffix image filename suffix
+     * @param image  image to record
+     */
+    public void add(String suffix, Mat image) {
+        suffixes.add(suffix);
+        images.add(image);
+    }
+
+    /**
+     * @return number of recorded images
+     */
+    public int size() {
+        return images.size();
+    }
+
+    /**
+     * Passes all recorded images to sink, which takes ownership of them.
+     *
+     * @param sink debug image sink
+     */
+    public void writeTo(DebugImageSink sink) {
+        while (!images.isEmpty()) {
+            Mat image = images.remove(0);
+            sink.write(outputDir.resolve(filenamePrefix + "_" + suffixes.remove(0) + ".png"), image);
+        }
+    }
+
+    /**
+     * Releases recorded images which were not passed to sink.
+     */
+    public void release() {
+        for (Mat image : images) {
+            image.release();
+        }
+        images.clear();
+        suffixes.clear();
+    }
+}
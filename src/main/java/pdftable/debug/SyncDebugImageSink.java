@@ -0,0 +1,21 @@
+package pdftable.debug;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.nio.file.Path;
+
+/**
+ * Debug image sink encoding and writing images on the calling thread.
+ */
+public class SyncDebugImageSink implements DebugImageSink {
+
+    @Override
+    public void write(Path path, Mat image) {
+        try {
+            Imgcodecs.imwrite(path.toString(), image);
+        } finally {
+            image.release();
+        }
+    }
+}
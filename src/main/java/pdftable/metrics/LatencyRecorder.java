@@ -0,0 +1,85 @@
+package pdftable.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Thread-safe latency recorder keeping a fixed size window of most recent samples.
+ * Percentiles are computed over that window.
+ */
+public class LatencyRecorder {
+
+    private static final int DEFAULT_WINDOW = 4096;
+
+    private final long[] samples;
+    private long count = 0;
+    private long totalNanos = 0;
+
+    /**
+     * @param window number of most recent samples used for percentiles
+     */
+    public LatencyRecorder(int window) {
+        this.samples = new long[window];
+    }
+
+    public LatencyRecorder() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * Records single sample.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        samples[(int) (count % samples.length)] = nanos;
+        count++;
+        totalNanos += nanos;
+    }
+
+    /**
+     * @return total number of recorded samples
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return sum of all recorded samples in nanoseconds
+     */
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns percentile of samples in current window.
+     *
+     * @param percentile percentile in range (0, 100]
+     * @return latency in milliseconds, 0 when nothing was recorded
+     */
+    public double getPercentileMillis(double percentile) {
+        return getPercentilesMillis(percentile)[0];
+    }
+
+    /**
+     * Returns several percentiles of samples in current window using single sort.
+     *
+     * @param percentiles percentiles in range (0, 100]
+     * @return latencies in milliseconds, zeros when nothing was recorded
+     */
+    public double[] getPercentilesMillis(double... percentiles) {
+        long[] window;
+        synchronized (this) {
+            window = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        }
+        double[] out = new double[percentiles.length];
+        if (window.length == 0) {
+            return out;
+        }
+        Arrays.sort(window);
+        for (int i = 0; i < percentiles.length; i++) {
+            int index = (int) Math.ceil(percentiles[i] / 100.0 * window.length) - 1;
+            out[i] = window[Math.max(0, Math.min(index, window.length - 1))] / 1_000_000.0;
+        }
+        return out;
+    }
+}
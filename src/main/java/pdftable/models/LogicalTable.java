@@ -0,0 +1,53 @@
+package pdftable.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Table assembled from consecutive pages, with repeated header rows removed.
+ */
+public class LogicalTable {
+
+    private final int startPage;
+    private int endPage;
+    private final List<ParsedTablePage.ParsedTableRow> rows = new ArrayList<>();
+
+    public LogicalTable(int startPage) {
+        this.startPage = startPage;
+        this.endPage = startPage;
+    }
+
+    public void addRows(List<ParsedTablePage.ParsedTableRow> rows, int pageNum) {
+        this.rows.addAll(rows);
+        this.endPage = pageNum;
+    }
+
+    public List<ParsedTablePage.ParsedTableRow> getRows() {
+        return rows;
+    }
+
+    public ParsedTablePage.ParsedTableRow getRow(int index) {
+        return rows.get(index);
+    }
+
+    /**
+     * @return first page of the table (first page == 1)
+     */
+    public int getStartPage() {
+        return startPage;
+    }
+
+    /**
+     * @return last page of the table
+     */
+    public int getEndPage() {
+        return endPage;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("<%s@%s; pages:%d-%d; rows:%s>",
+                this.getClass().getSimpleName(), System.identityHashCode(this), startPage, endPage, Arrays.toString(rows.toArray()));
+    }
+}
@@ -2,6 +2,10 @@ package pdftable.models;
 
 import org.apache.commons.lang3.StringEscapeUtils;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -9,15 +13,47 @@ import java.util.stream.Collectors;
 
 /**
  * Parsed page model.
+ * <p>
+ * Besides cell texts, rows may carry cell geometry: bounding boxes in PDF user space (points, origin in lower left
+ * corner, y axis pointing up) and layout of each cell within its table (table index, grid position and spans).
+ * Geometry is stored in flat primitive arrays per row.
  */
 public class ParsedTablePage {
 
     public class ParsedTableRow {
 
+        // CELL BOUNDS ARRAY OFFSETS, array holds BOUNDS_SIZE values per cell
+        public static final int BOUNDS_LEFT = 0;
+        public static final int BOUNDS_BOTTOM = 1;
+        public static final int BOUNDS_RIGHT = 2;
+        public static final int BOUNDS_TOP = 3;
+        public static final int BOUNDS_SIZE = 4;
+
+        // CELL LAYOUT ARRAY OFFSETS, array holds LAYOUT_SIZE values per cell
+        public static final int LAYOUT_TABLE = 0;
+        public static final int LAYOUT_ROW = 1;
+        public static final int LAYOUT_COLUMN = 2;
+        public static final int LAYOUT_ROW_SPAN = 3;
+        public static final int LAYOUT_COLUMN_SPAN = 4;
+        public static final int LAYOUT_SIZE = 5;
+
         private List<String> cells;
+        private float[] cellBounds;
+        private int[] cellLayout;
 
         public ParsedTableRow(List<String> cells) {
+            this(cells, null, null);
+        }
+
+        /**
+         * @param cells      cell texts
+         * @param cellBounds left, bottom, right, top of each cell in PDF user space (see BOUNDS_* offsets), may be null
+         * @param cellLayout table index, grid row, grid column, row span, column span of each cell (see LAYOUT_* offsets), may be null
+         */
+        public ParsedTableRow(List<String> cells, float[] cellBounds, int[] cellLayout) {
             this.cells = cells;
+            this.cellBounds = cellBounds;
+            this.cellLayout = cellLayout;
         }
 
         public List<String> getCells() {
@@ -28,6 +64,117 @@ public class ParsedTablePage {
             return cells.get(index);
         }
 
+        /**
+         * @return true when cell bounds are known
+         */
+        public boolean hasBounds() {
+            return cellBounds != null;
+        }
+
+        /**
+         * @return true when cell table layout is known
+         */
+        public boolean hasLayout() {
+            return cellLayout != null;
+        }
+
+        public float getCellLeft(int index) {
+            return cellBounds[index * BOUNDS_SIZE + BOUNDS_LEFT];
+        }
+
+        public float getCellBottom(int index) {
+            return cellBounds[index * BOUNDS_SIZE + BOUNDS_BOTTOM];
+        }
+
+        public float getCellRight(int index) {
+            return cellBounds[index * BOUNDS_SIZE + BOUNDS_RIGHT];
+        }
+
+        public float getCellTop(int index) {
+            return cellBounds[index * BOUNDS_SIZE + BOUNDS_TOP];
+        }
+
+        /**
+         * @return index of table on the page to which cell belongs
+         */
+        public int getCellTable(int index) {
+            return cellLayout[index * LAYOUT_SIZE + LAYOUT_TABLE];
+        }
+
+        /**
+         * @return first grid row of cell within its table
+         */
+        public int getCellGridRow(int index) {
+            return cellLayout[index * LAYOUT_SIZE + LAYOUT_ROW];
+        }
+
+        /**
+         * @return first grid column of cell within its table
+         */
+        public int getCellGridColumn(int index) {
+            return cellLayout[index * LAYOUT_SIZE + LAYOUT_COLUMN];
+        }
+
+        public int getCellRowSpan(int index) {
+            return cellLayout[index * LAYOUT_SIZE + LAYOUT_ROW_SPAN];
+        }
+
+        public int getCellColumnSpan(int index) {
+            return cellLayout[index * LAYOUT_SIZE + LAYOUT_COLUMN_SPAN];
+        }
+
+        /**
+         * @param cellIndexes indexes of copied cells
+         * @return bounds of specified cells in new array, null when bounds are not known
+         */
+        public float[] copyCellBounds(List<Integer> cellIndexes) {
+            if (cellBounds == null) {
+                return null;
+            }
+            float[] out = new float[cellIndexes.size() * BOUNDS_SIZE];
+            for (int i = 0; i < cellIndexes.size(); i++) {
+                System.arraycopy(cellBounds, cellIndexes.get(i) * BOUNDS_SIZE, out, i * BOUNDS_SIZE, BOUNDS_SIZE);
+            }
+            return out;
+        }
+
+        /**
+         * @param cellIndexes indexes of copied cells
+         * @return layout of specified cells in new array, null when layout is not known
+         */
+        public int[] copyCellLayout(List<Integer> cellIndexes) {
+            if (cellLayout == null) {
+                return null;
+            }
+            int[] out = new int[cellIndexes.size() * LAYOUT_SIZE];
+            for (int i = 0; i < cellIndexes.size(); i++) {
+                System.arraycopy(cellLayout, cellIndexes.get(i) * LAYOUT_SIZE, out, i * LAYOUT_SIZE, LAYOUT_SIZE);
+            }
+            return out;
+        }
+
+        /**
+         * @return top edge of the row (highest cell top)
+         */
+        public float getTop() {
+            float top = -Float.MAX_VALUE;
+            for (int i = 0; i < cells.size(); i++) {
+                top = Math.max(top, getCellTop(i));
+            }
+            return top;
+        }
+
+        /**
+         * @return bottom edge of the row (lowest cell bottom)
+         */
+        public float getBottom() {
+            float bottom = Float.MAX_VALUE;
+            for (int i = 0; i < cells.size(); i++) {
+                bottom = Math.min(bottom, getCellBottom(i));
+            }
+            return bottom;
+        }
+
         @Override
         public String toString() {
             List<String> escapedCells = cells.stream().map(c -> StringEscapeUtils.escapeJava(c)).collect(Collectors.toList());
@@ -36,11 +183,161 @@ public class ParsedTablePage {
         }
     }
 
+    /**
+     * Single table on the page - cluster of connected cell rectangles.
+     */
+    public class ParsedTable {
+
+        private int index;
+        private int gridRows;
+        private int gridColumns;
+        // built on first lookup, dropped when rows are added
+        private volatile ParsedTableCell[][] grid;
+
+        public ParsedTable(int index, int gridRows, int gridColumns) {
+            this.index = index;
+            this.gridRows = gridRows;
+            this.gridColumns = gridColumns;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getGridRowCount() {
+            return gridRows;
+        }
+
+        public int getGridColumnCount() {
+            return gridColumns;
+        }
+
+        /**
+         * @return cells of this table in page row order
+         */
+        public List<ParsedTableCell> getCells() {
+            List<ParsedTableCell> out = new ArrayList<>();
+            for (ParsedTableRow row : rows) {
+                for (int i = 0; i < row.getCells().size(); i++) {
+                    if (row.hasLayout() && row.getCellTable(i) == index) {
+                        out.add(new ParsedTableCell(row, i));
+                    }
+                }
+            }
+            return out;
+        }
+
+        /**
+         * Returns cell covering specified grid position, merged cells cover several positions.
+         *
+         * @param gridRow    grid row
+         * @param gridColumn grid column
+         * @return covering cell or null when there is no cell at given position
+         */
+        public ParsedTableCell getCell(int gridRow, int gridColumn) {
+            if (gridRow < 0 || gridRow >= gridRows || gridColumn < 0 || gridColumn >= gridColumns) {
+                return null;
+            }
+            ParsedTableCell[][] cells = grid;
+            if (cells == null) {
+                cells = buildGrid();
+                grid = cells;
+            }
+            return cells[gridRow][gridColumn];
+        }
+
+        /**
+         * Maps each grid position to covering cell, first cell in page row order wins.
+         */
+        private ParsedTableCell[][] buildGrid() {
+            ParsedTableCell[][] out = new ParsedTableCell[gridRows][gridColumns];
+            for (ParsedTableCell cell : getCells()) {
+                int lastRow = Math.min(cell.getGridRow() + cell.getRowSpan(), gridRows);
+                int lastColumn = Math.min(cell.getGridColumn() + cell.getColumnSpan(), gridColumns);
+                for (int r = Math.max(cell.getGridRow(), 0); r < lastRow; r++) {
+                    for (int c = Math.max(cell.getGridColumn(), 0); c < lastColumn; c++) {
+                        if (out[r][c] == null) {
+                            out[r][c] = cell;
+                        }
+                    }
+                }
+            }
+            return out;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("<%s@%s; index:%d; grid:%dx%d>",
+                    this.getClass().getSimpleName(), System.identityHashCode(this), index, gridRows, gridColumns);
+        }
+    }
+
+    /**
+     * Lightweight view of single cell, created on demand.
+     */
+    public static class ParsedTableCell {
+
+        private final ParsedTableRow row;
+        private final int index;
+
+        public ParsedTableCell(ParsedTableRow row, int index) {
+            this.row = row;
+            this.index = index;
+        }
+
+        public String getText() {
+            return row.getCell(index);
+        }
+
+        public float getLeft() {
+            return row.getCellLeft(index);
+        }
+
+        public float getBottom() {
+            return row.getCellBottom(index);
+        }
+
+        public float getRight() {
+            return row.getCellRight(index);
+        }
+
+        public float getTop() {
+            return row.getCellTop(index);
+        }
+
+        public int getGridRow() {
+            return row.getCellGridRow(index);
+        }
+
+        public int getGridColumn() {
+            return row.getCellGridColumn(index);
+        }
+
+        public int getRowSpan() {
+            return row.getCellRowSpan(index);
+        }
+
+        public int getColumnSpan() {
+            return row.getCellColumnSpan(index);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("<%s@%s; row:%d; col:%d; span:%dx%d; text:%s>",
+                    this.getClass().getSimpleName(), System.identityHashCode(this),
+                    getGridRow(), getGridColumn(), getRowSpan(), getColumnSpan(), StringEscapeUtils.escapeJava(getText()));
+        }
+    }
+
     private List<ParsedTableRow> rows;
+    private List<ParsedTable> tables;
     private int pageNum;
+    // left, bottom, right, top of page crop box in PDF user space, null when not known
+    private float[] pageBounds;
 
     private ParsedTablePage() {
         rows = new ArrayList<>();
+        tables = new ArrayList<>();
     }
 
     public ParsedTablePage(int pageNumber) {
@@ -53,17 +350,187 @@ public class ParsedTablePage {
     }
 
     public void addRow(List<String> cells) {
-        rows.add(new ParsedTableRow(cells));
+        addRow(cells, null, null);
+    }
+
+    public void addRow(List<String> cells, float[] cellBounds) {
+        addRow(cells, cellBounds, null);
+    }
+
+    public void addRow(List<String> cells, float[] cellBounds, int[] cellLayout) {
+        rows.add(new ParsedTableRow(cells, cellBounds, cellLayout));
+        for (ParsedTable table : tables) {
+            table.grid = null;
+        }
     }
 
     public ParsedTableRow getRow(int index) {
         return rows.get(index);
     }
 
+    /**
+     * Registers table referenced by cell layouts. Tables must be added in index order.
+     *
+     * @param gridRows    number of grid rows
+     * @param gridColumns number of grid columns
+     */
+    public void addTable(int gridRows, int gridColumns) {
+        tables.add(new ParsedTable(tables.size(), gridRows, gridColumns));
+    }
+
+    public List<ParsedTable> getTables() {
+        return tables;
+    }
+
+    public ParsedTable getTable(int index) {
+        return tables.get(index);
+    }
+
     public int getPageNum() {
         return pageNum;
     }
 
+    /**
+     * Sets area of the page in PDF user space (page crop box), cell bounds lie within this area.
+     */
+    public void setPageBounds(float left, float bottom, float right, float top) {
+        pageBounds = new float[]{left, bottom, right, top};
+    }
+
+    /**
+     * @return true when page area is known
+     */
+    public boolean hasPageBounds() {
+        return pageBounds != null;
+    }
+
+    public float getPageLeft() {
+        return pageBounds[0];
+    }
+
+    public float getPageBottom() {
+        return pageBounds[1];
+    }
+
+    public float getPageRight() {
+        return pageBounds[2];
+    }
+
+    public float getPageTop() {
+        return pageBounds[3];
+    }
+
+    /**
+     * Serializes page to single line JSON object: {"page":1,"rows":[["cell","cell"],...]}.
+     *
+     * @return JSON representation of page
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"page\":").append(pageNum).append(",\"rows\":[");
+        for (int r = 0; r < rows.size(); r++) {
+            if (r > 0) {
+                sb.append(',');
+            }
+            sb.append('[');
+            List<String> cells = rows.get(r).getCells();
+            for (int c = 0; c < cells.size(); c++) {
+                if (c > 0) {
+                    sb.append(',');
+                }
+                sb.append('"').append(StringEscapeUtils.escapeJson(cells.get(c))).append('"');
+            }
+            sb.append(']');
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * Writes page in compact binary form, including cell geometry, readable by {@link #readFrom(DataInput)}.
+     *
+     * @param out destination
+     * @throws IOException
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(pageNum);
+        out.writeInt(rows.size());
+        for (ParsedTableRow row : rows) {
+            out.writeInt(row.cells.size());
+            for (String cell : row.cells) {
+                byte[] bytes = cell.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeBoolean(row.cellBounds != null);
+            if (row.cellBounds != null) {
+                for (float f : row.cellBounds) {
+                    out.writeFloat(f);
+                }
+            }
+            out.writeBoolean(row.cellLayout != null);
+            if (row.cellLayout != null) {
+                for (int v : row.cellLayout) {
+                    out.writeInt(v);
+                }
+            }
+        }
+        out.writeInt(tables.size());
+        for (ParsedTable table : tables) {
+            out.writeInt(table.getGridRowCount());
+            out.writeInt(table.getGridColumnCount());
+        }
+        out.writeBoolean(pageBounds != null);
+        if (pageBounds != null) {
+            for (float f : pageBounds) {
+                out.writeFloat(f);
+            }
+        }
+    }
+
+    /**
+     * Reads page written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in source
+     * @return read page
+     * @throws IOException
+     */
+    public static ParsedTablePage readFrom(DataInput in) throws IOException {
+        ParsedTablePage page = new ParsedTablePage(in.readInt());
+        int rowCount = in.readInt();
+        for (int r = 0; r < rowCount; r++) {
+            int cellCount = in.readInt();
+            List<String> cells = new ArrayList<>(cellCount);
+            for (int c = 0; c < cellCount; c++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                cells.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            float[] bounds = null;
+            if (in.readBoolean()) {
+                bounds = new float[cellCount * ParsedTableRow.BOUNDS_SIZE];
+                for (int i = 0; i < bounds.length; i++) {
+                    bounds[i] = in.readFloat();
+                }
+            }
+            int[] layout = null;
+            if (in.readBoolean()) {
+                layout = new int[cellCount * ParsedTableRow.LAYOUT_SIZE];
+                for (int i = 0; i < layout.length; i++) {
+                    layout[i] = in.readInt();
+                }
+            }
+            page.addRow(cells, bounds, layout);
+        }
+        int tableCount = in.readInt();
+        for (int t = 0; t < tableCount; t++) {
+            page.addTable(in.readInt(), in.readInt());
+        }
+        if (in.readBoolean()) {
+            page.setPageBounds(in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat());
+        }
+        return page;
+    }
+
     @Override
     public String toString() {
         return String.format("<%s@%s; rows:%s>",
@@ -0,0 +1,389 @@
+package pdftable.server;
+
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import pdftable.PdfTableReader;
+import pdftable.PdfTableSettings;
+import pdftable.metrics.LatencyRecorder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded HTTP server exposing PdfTableReader.
+ * <p>
+ * Endpoints:
+ * <ul>
+ * <li>{@code POST /extract[?startPage=N&endPage=M&dpi=D]} - request body is PDF document, response is NDJSON stream
+ * with one parsed page per line; {@code dpi} overrides rendering DPI of table settings for single request</li>
+ * <li>{@code GET /metrics} - JSON with request counters, throughput and per-stage latency percentiles</li>
+ * </ul>
+ * At most {@code workerThreads + queueCapacity} requests are admitted at once, remaining requests are rejected
+ * with HTTP 429. Admitted requests refused with other 4xx status (too large, invalid parameters or document)
+ * are counted as invalid, not as completed. Failed requests are logged and answered with HTTP 500 unless
+ * the response was already started.
+ */
+public class ExtractionServer implements Closeable {
+
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final String JSON_CONTENT_TYPE = "application/json";
+    private static final int MAX_DPI = 600;
+
+    private final ExtractionServerSettings settings;
+    // shared by all workers, per-request settings are applied with withSettings
+    private final PdfTableReader reader;
+    private final HttpServer httpServer;
+    private final ExecutorService dispatcher;
+    private final ExecutorService workers;
+    private final Semaphore admission;
+    private final PrintStream log;
+
+    // METRICS
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong pages = new AtomicLong();
+    private final Map<String, LatencyRecorder> stages = new LinkedHashMap<>();
+    private final LatencyRecorder queueLatency = stage("queue");
+    private final LatencyRecorder loadLatency = stage("load");
+    private final LatencyRecorder pageLatency = stage("page");
+    private final LatencyRecorder writeLatency = stage("write");
+    private final LatencyRecorder requestLatency = stage("request");
+
+    /**
+     * @param settings server settings
+     * @param log      log of failed requests, may be null
+     * @throws IOException when server socket cannot be created
+     */
+    public ExtractionServer(ExtractionServerSettings settings, PrintStream log) throws IOException {
+        this.settings = settings;
+        this.log = log;
+        this.reader = new PdfTableReader(settings.getTableSettings());
+        this.admission = new Semaphore(settings.getWorkerThreads() + settings.getQueueCapacity());
+        this.workers = Executors.newFixedThreadPool(settings.getWorkerThreads());
+        this.dispatcher = Executors.newSingleThreadExecutor();
+        this.httpServer = HttpServer.create(new InetSocketAddress(settings.getPort()), 0);
+        this.httpServer.setExecutor(dispatcher);
+        this.httpServer.createContext("/extract", this::handleExtract);
+        this.httpServer.createContext("/metrics", this::handleMetrics);
+    }
+
+    public ExtractionServer(ExtractionServerSettings settings) throws IOException {
+        this(settings, System.err);
+    }
+
+    public ExtractionServer() throws IOException {
+        this(new ExtractionServerSettings());
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * @return port server is listening on (useful when port 0 was requested)
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits for admitted requests to finish and releases page buffers of workers.
+     */
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        dispatcher.shutdown();
+        workers.shutdown();
+        try {
+            if (workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                reader.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Admits extraction request and hands it to worker pool. Runs on dispatcher thread, so it must not block.
+     */
+    private void handleExtract(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "POST required");
+            return;
+        }
+        if (!admission.tryAcquire()) {
+            rejected.incrementAndGet();
+            sendError(exchange, 429, "too many requests");
+            return;
+        }
+        accepted.incrementAndGet();
+        long admittedNanos = System.nanoTime();
+        workers.execute(() -> {
+            try {
+                queueLatency.record(System.nanoTime() - admittedNanos);
+                if (processExtract(exchange)) {
+                    completed.incrementAndGet();
+                } else {
+                    invalid.incrementAndGet();
+                }
+            } catch (Throwable e) {
+                failed.incrementAndGet();
+                fail(exchange, e);
+            } finally {
+                requestLatency.record(System.nanoTime() - admittedNanos);
+                exchange.close();
+                admission.release();
+            }
+        });
+    }
+
+    /**
+     * Parses uploaded PDF and streams parsed pages as NDJSON.
+     *
+     * @return true when pages were extracted, false when request was refused with 4xx status
+     */
+    private boolean processExtract(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI());
+
+        long loadStart = System.nanoTime();
+        byte[] body = readBody(exchange.getRequestBody(), settings.getMaxUploadBytes());
+        if (body == null) {
+            sendError(exchange, 413, "upload exceeds " + settings.getMaxUploadBytes() + " bytes");
+            return false;
+        }
+
+        PDDocument document;
+        try {
+            document = PDDocument.load(body);
+        } catch (IOException e) {
+            sendError(exchange, 400, "cannot load PDF: " + e.getMessage());
+            return false;
+        }
+        loadLatency.record(System.nanoTime() - loadStart);
+
+        try {
+            int startPage;
+            int endPage;
+            try {
+                startPage = Integer.parseInt(params.getOrDefault("startPage", "1"));
+                endPage = Integer.parseInt(params.getOrDefault("endPage", String.valueOf(document.getNumberOfPages())));
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "invalid page number: " + e.getMessage());
+                return false;
+            }
+            if (startPage < 1 || endPage > document.getNumberOfPages() || startPage > endPage) {
+                sendError(exchange, 400, "invalid page range " + startPage + "-" + endPage);
+                return false;
+            }
+            if (endPage - startPage + 1 > settings.getMaxPagesPerRequest()) {
+                sendError(exchange, 413, "page range exceeds " + settings.getMaxPagesPerRequest() + " pages");
+                return false;
+            }
+            PdfTableReader requestReader = reader;
+            if (params.containsKey("dpi")) {
+                int dpi;
+                try {
+                    dpi = Integer.parseInt(params.get("dpi"));
+                } catch (NumberFormatException e) {
+                    sendError(exchange, 400, "invalid dpi: " + e.getMessage());
+                    return false;
+                }
+                if (dpi < 1 || dpi > MAX_DPI) {
+                    sendError(exchange, 400, "dpi must be between 1 and " + MAX_DPI);
+                    return false;
+                }
+                requestReader = reader.withSettings(PdfTableSettings.getBuilder(reader.getSettings()).setPdfRenderingDpi(dpi).build());
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", NDJSON_CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, 0);
+            Writer writer = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+            long[] pageStart = {System.nanoTime()};
+            try {
+                requestReader.parsePdfTablePages(document, startPage, endPage, page -> {
+                    long writeStart = System.nanoTime();
+                    pageLatency.record(writeStart - pageStart[0]);
+                    writer.write(page.toJson());
+                    writer.write('\n');
+                    writer.flush();
+                    pages.incrementAndGet();
+                    pageStart[0] = System.nanoTime();
+                    writeLatency.record(pageStart[0] - writeStart);
+                });
+            } catch (Throwable e) {
+                // headers are already sent, so error is reported as last NDJSON line
+                try {
+                    writer.write("{\"error\":\"" + escape(String.valueOf(e.getMessage())) + "\"}\n");
+                    writer.flush();
+                } catch (IOException ignored) {
+                    // client is gone
+                }
+                throw e;
+            }
+            return true;
+        } finally {
+            document.close();
+        }
+    }
+
+    /**
+     * Logs failure of admitted request and reports it to client unless response was already started.
+     */
+    private void fail(HttpExchange exchange, Throwable e) {
+        if (log != null) {
+            log.println("failed " + exchange.getRequestURI() + ": " + e);
+        }
+        if (exchange.getResponseCode() == -1) {
+            try {
+                sendError(exchange, 500, String.valueOf(e));
+            } catch (IOException ignored) {
+                // client is gone
+            }
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            double uptime = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"uptimeSeconds\":").append(uptime);
+            sb.append(",\"requests\":{")
+                    .append("\"accepted\":").append(accepted.get())
+                    .append(",\"rejected\":").append(rejected.get())
+                    .append(",\"invalid\":").append(invalid.get())
+                    .append(",\"completed\":").append(completed.get())
+                    .append(",\"failed\":").append(failed.get())
+                    .append(",\"inFlight\":").append(getInFlightRequests())
+                    .append('}');
+            sb.append(",\"pages\":").append(pages.get());
+            sb.append(",\"pagesPerSecond\":").append(uptime > 0 ? pages.get() / uptime : 0);
+            sb.append(",\"requestsPerSecond\":").append(uptime > 0 ? completed.get() / uptime : 0);
+            sb.append(",\"stagesMillis\":{");
+            boolean first = true;
+            for (Map.Entry<String, LatencyRecorder> stage : stages.entrySet()) {
+                double[] p = stage.getValue().getPercentilesMillis(50, 95, 99);
+                sb.append(first ? "" : ",").append('"').append(stage.getKey()).append("\":{")
+                        .append("\"count\":").append(stage.getValue().getCount())
+                        .append(",\"p50\":").append(p[0])
+                        .append(",\"p95\":").append(p[1])
+                        .append(",\"p99\":").append(p[2])
+                        .append('}');
+                first = false;
+            }
+            sb.append("}}");
+            sendBody(exchange, 200, JSON_CONTENT_TYPE, sb.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @return number of requests admitted and not yet finished
+     */
+    public int getInFlightRequests() {
+        return settings.getWorkerThreads() + settings.getQueueCapacity() - admission.availablePermits();
+    }
+
+    private LatencyRecorder stage(String name) {
+        LatencyRecorder recorder = new LatencyRecorder();
+        stages.put(name, recorder);
+        return recorder;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        try {
+            sendBody(exchange, status, JSON_CONTENT_TYPE, "{\"error\":\"" + escape(message) + "\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sendBody(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Reads request body.
+     *
+     * @return body bytes or null when body exceeds limit
+     */
+    private static byte[] readBody(InputStream in, long limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (out.size() + read > limit) {
+                return null;
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> out = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return out;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                out.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return out;
+    }
+
+    private static String escape(String s) {
+        return StringEscapeUtils.escapeJson(s);
+    }
+
+    /**
+     * Starts server on port given as first argument (default 8080).
+     *
+     * @param args optional port
+     * @throws IOException when server cannot be started
+     */
+    public static void main(String[] args) throws IOException {
+        ExtractionServerSettings.ExtractionServerSettingsBuilder builder = ExtractionServerSettings.getBuilder();
+        if (args.length > 0) {
+            builder.setPort(Integer.parseInt(args[0]));
+        }
+        ExtractionServer server = new ExtractionServer(builder.build());
+        server.start();
+        System.out.println("pdf-table extraction server listening on port " + server.getPort());
+    }
+}
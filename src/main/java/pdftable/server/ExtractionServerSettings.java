@@ -0,0 +1,120 @@
+package pdftable.server;
+
+
+import pdftable.PdfTableSettings;
+
+/**
+ * Extraction server settings.
+ */
+public class ExtractionServerSettings {
+
+    public static class ExtractionServerSettingsBuilder {
+
+        // --------------
+        // DEFAULT VALUES
+        // --------------
+
+        // NETWORK SETTINGS
+        private int port = 8080;
+
+        // ADMISSION SETTINGS
+        private int workerThreads = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = 2 * Runtime.getRuntime().availableProcessors();
+
+        // REQUEST LIMITS
+        private int maxPagesPerRequest = 500;
+        private long maxUploadBytes = 100L * 1024 * 1024;
+
+        // EXTRACTION SETTINGS
+        private PdfTableSettings tableSettings = new PdfTableSettings();
+
+        public ExtractionServerSettingsBuilder setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public ExtractionServerSettingsBuilder setWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+            return this;
+        }
+
+        public ExtractionServerSettingsBuilder setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public ExtractionServerSettingsBuilder setMaxPagesPerRequest(int maxPagesPerRequest) {
+            this.maxPagesPerRequest = maxPagesPerRequest;
+            return this;
+        }
+
+        public ExtractionServerSettingsBuilder setMaxUploadBytes(long maxUploadBytes) {
+            this.maxUploadBytes = maxUploadBytes;
+            return this;
+        }
+
+        public ExtractionServerSettingsBuilder setTableSettings(PdfTableSettings tableSettings) {
+            this.tableSettings = tableSettings;
+            return this;
+        }
+
+        public ExtractionServerSettings build() {
+            return new ExtractionServerSettings(this);
+        }
+    }
+
+    // NETWORK SETTINGS
+    private int port;
+
+    // ADMISSION SETTINGS
+    private int workerThreads;
+    private int queueCapacity;
+
+    // REQUEST LIMITS
+    private int maxPagesPerRequest;
+    private long maxUploadBytes;
+
+    // EXTRACTION SETTINGS
+    private PdfTableSettings tableSettings;
+
+    private ExtractionServerSettings(ExtractionServerSettingsBuilder builder) {
+        this.port = builder.port;
+        this.workerThreads = builder.workerThreads;
+        this.queueCapacity = builder.queueCapacity;
+        this.maxPagesPerRequest = builder.maxPagesPerRequest;
+        this.maxUploadBytes = builder.maxUploadBytes;
+        this.tableSettings = builder.tableSettings;
+    }
+
+    public ExtractionServerSettings() {
+        this(new ExtractionServerSettingsBuilder());
+    }
+
+    public static ExtractionServerSettingsBuilder getBuilder() {
+        return new ExtractionServerSettingsBuilder();
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getMaxPagesPerRequest() {
+        return maxPagesPerRequest;
+    }
+
+    public long getMaxUploadBytes() {
+        return maxUploadBytes;
+    }
+
+    public PdfTableSettings getTableSettings() {
+        return tableSettings;
+    }
+}
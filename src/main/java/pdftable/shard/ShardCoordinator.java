@@ -0,0 +1,185 @@
+package pdftable.shard;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import pdftable.ParsedTablePageConsumer;
+import pdftable.PdfTableSettings;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits documents into page range shards, submits them to {@link ShardQueue} and merges results of shards
+ * processed by {@link ShardWorker}s back into document pages in page order.
+ */
+public class ShardCoordinator {
+
+    private final ShardQueue queue;
+    private final PdfTableSettings tableSettings;
+    private final ShardSettings settings;
+
+    /**
+     * @param queue         shard queue
+     * @param tableSettings extraction settings, shards are processed only by workers with the same settings
+     * @param settings      sharding settings
+     */
+    public ShardCoordinator(ShardQueue queue, PdfTableSettings tableSettings, ShardSettings settings) {
+        this.queue = queue;
+        this.tableSettings = tableSettings;
+        this.settings = settings;
+    }
+
+    /**
+     * Splits document into shards and adds them to queue. Submitting unchanged document again
+     * reuses its job, shards completed before are not processed again and failed shards are retried.
+     * Job is marked as submitted only after all its shards were added, so that submission interrupted
+     * e.g. by crash of coordinator is completed by next submission.
+     *
+     * @param document document path, must be accessible to all workers under the same path
+     * @return job id
+     * @throws IOException when document cannot be read
+     */
+    public String submit(Path document) throws IOException {
+        Path absolute = document.toAbsolutePath();
+        String jobId = getJobId(absolute);
+        if (queue.readJobPageCount(jobId) >= 0) {
+            for (ShardTask task : queue.listTasks(jobId)) {
+                queue.clearFailure(task.getId());
+            }
+            return jobId;
+        }
+        int pageCount;
+        try (PDDocument pdf = PDDocument.load(absolute.toFile())) {
+            pageCount = pdf.getNumberOfPages();
+        }
+        String fingerprint = tableSettings.getExtractionFingerprint();
+        for (int start = 1; start <= pageCount; start += settings.getPagesPerShard()) {
+            int end = Math.min(start + settings.getPagesPerShard() - 1, pageCount);
+            queue.addTask(new ShardTask(jobId, absolute, start, end, fingerprint));
+        }
+        queue.writeJob(jobId, pageCount);
+        return jobId;
+    }
+
+    /**
+     * @param jobId job id
+     * @return true when all shards of job were completed or failed
+     * @throws IOException when job is unknown or its shards do not cover all document pages
+     */
+    public boolean isComplete(String jobId) throws IOException {
+        for (ShardTask task : getTasks(jobId)) {
+            if (!queue.isDone(task.getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits until job is complete.
+     *
+     * @param jobId         job id
+     * @param timeoutMillis maximal wait
+     * @return true when job is complete
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public boolean awaitCompletion(String jobId, long timeoutMillis) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!isComplete(jobId)) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(settings.getPollIntervalMillis());
+        }
+        return true;
+    }
+
+    /**
+     * Passes pages of completed job to consumer in page order, one shard at a time.
+     *
+     * @param jobId    job id
+     * @param consumer parsed pages consumer
+     * @return number of pages
+     * @throws IOException when job is unknown, not complete or some of its shards failed
+     */
+    public long merge(String jobId, ParsedTablePageConsumer consumer) throws IOException {
+        List<ShardTask> tasks = getTasks(jobId);
+        for (ShardTask task : tasks) {
+            String failure = queue.readFailure(task.getId());
+            if (failure != null) {
+                throw new IOException("shard " + task + " failed: " + failure);
+            }
+            if (!queue.isDone(task.getId())) {
+                throw new IOException("shard " + task + " is not complete");
+            }
+        }
+        long pages = 0;
+        for (ShardTask task : tasks) {
+            pages += queue.readResult(task.getId(), consumer);
+        }
+        return pages;
+    }
+
+    /**
+     * Removes all files of job from queue.
+     *
+     * @param jobId job id
+     * @throws IOException
+     */
+    public void remove(String jobId) throws IOException {
+        // job without marker is submitted again from scratch
+        queue.removeJob(jobId);
+        for (ShardTask task : queue.listTasks(jobId)) {
+            queue.remove(task.getId());
+        }
+    }
+
+    /**
+     * @return shards of fully submitted job, sorted by start page
+     * @throws IOException when job is unknown or its shards do not cover pages 1..page count without gaps
+     */
+    private List<ShardTask> getTasks(String jobId) throws IOException {
+        int pageCount = queue.readJobPageCount(jobId);
+        if (pageCount < 0) {
+            throw new IOException("unknown job " + jobId);
+        }
+        List<ShardTask> tasks = queue.listTasks(jobId);
+        int nextPage = 1;
+        for (ShardTask task : tasks) {
+            if (task.getStartPage() != nextPage) {
+                throw new IOException("shards of job " + jobId + " do not cover page " + nextPage);
+            }
+            nextPage = task.getEndPage() + 1;
+        }
+        if (nextPage != pageCount + 1) {
+            throw new IOException("shards of job " + jobId + " cover " + (nextPage - 1) + " of " + pageCount + " pages");
+        }
+        return tasks;
+    }
+
+    /**
+     * Builds job id from document name and hash of its path, size, modification time and extraction settings,
+     * so that changed document or settings get new job.
+     */
+    private String getJobId(Path document) throws IOException {
+        String name = document.getFileName().toString().replaceAll("[^A-Za-z0-9_-]", "_");
+        String key = document + "\t" + Files.size(document) + "\t" + Files.getLastModifiedTime(document).toMillis()
+                + "\t" + tableSettings.getExtractionFingerprint();
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(name).append('-');
+            for (int i = 0; i < 6; i++) {
+                sb.append(String.format(Locale.ROOT, "%02x", hash[i]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
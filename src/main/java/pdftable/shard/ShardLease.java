@@ -0,0 +1,152 @@
+package pdftable.shard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Exclusive lease of single shard, stored as lease file holding owner id and random token.
+ * <p>
+ * Lease file is created atomically, so only one worker acquires free shard. Owner refreshes modification time
+ * of the file by {@link #heartbeat()}; lease not refreshed for lease timeout is expired and may be reclaimed by
+ * another worker. Expired lease file is first renamed away and then compared with the lease found expired; when
+ * it was replaced or refreshed meanwhile (e.g. reclaimed by another worker), it is moved back and reclaiming fails.
+ * Owner which finds its token replaced or its lease file missing has lost the lease and must abandon the shard.
+ */
+public class ShardLease implements Closeable {
+
+    private final Path path;
+    private final byte[] content;
+    private final boolean reclaimed;
+    private volatile boolean lost;
+
+    private ShardLease(Path path, byte[] content, boolean reclaimed) {
+        this.path = path;
+        this.content = content;
+        this.reclaimed = reclaimed;
+    }
+
+    /**
+     * Tries to acquire lease, reclaiming expired one.
+     *
+     * @param path          lease file path
+     * @param workerId      owner id, stored in lease file for diagnostics
+     * @param timeoutMillis lease timeout
+     * @return acquired lease, null when lease is held by another worker
+     * @throws IOException when lease file cannot be written
+     */
+    static ShardLease tryAcquire(Path path, String workerId, long timeoutMillis) throws IOException {
+        String token = UUID.randomUUID().toString();
+        byte[] content = (workerId + "\n" + token).getBytes(StandardCharsets.UTF_8);
+        boolean reclaimed = false;
+        // second attempt follows reclaiming of expired lease
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                Files.write(path, content, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                return new ShardLease(path, content, reclaimed);
+            } catch (FileAlreadyExistsException e) {
+                if (reclaimed) {
+                    return null;
+                }
+                FileTime modified;
+                byte[] expiredContent;
+                try {
+                    modified = Files.getLastModifiedTime(path);
+                    expiredContent = Files.readAllBytes(path);
+                } catch (NoSuchFileException released) {
+                    // released by owner meanwhile
+                    continue;
+                }
+                if (modified.toMillis() + timeoutMillis >= System.currentTimeMillis()) {
+                    return null;
+                }
+                Path expired = path.resolveSibling(path.getFileName() + "." + token + ".expired");
+                try {
+                    Files.move(path, expired, StandardCopyOption.ATOMIC_MOVE);
+                } catch (NoSuchFileException moved) {
+                    // reclaimed or released by another worker meanwhile
+                    return null;
+                }
+                // another worker may have reclaimed the checked lease and created its own before the move
+                if (!modified.equals(Files.getLastModifiedTime(expired)) || !Arrays.equals(expiredContent, Files.readAllBytes(expired))) {
+                    restore(expired, path);
+                    return null;
+                }
+                Files.deleteIfExists(expired);
+                reclaimed = true;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves lease renamed away by mistake back, unless another lease was created meanwhile.
+     */
+    private static void restore(Path moved, Path path) throws IOException {
+        try {
+            try {
+                // unlike rename, link never replaces lease created meanwhile by third worker
+                Files.createLink(path, moved);
+            } catch (UnsupportedOperationException e) {
+                Files.move(moved, path);
+                return;
+            }
+        } catch (FileAlreadyExistsException e) {
+            // moved lease is lost for its owner anyway
+        }
+        Files.deleteIfExists(moved);
+    }
+
+    /**
+     * Refreshes lease when it is still owned.
+     *
+     * @return false when lease was lost, e.g. reclaimed by another worker after missed heartbeats
+     */
+    public boolean heartbeat() {
+        if (lost) {
+            return false;
+        }
+        try {
+            if (!Arrays.equals(Files.readAllBytes(path), content)) {
+                lost = true;
+                return false;
+            }
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (IOException e) {
+            lost = true;
+            return false;
+        }
+    }
+
+    public boolean isLost() {
+        return lost;
+    }
+
+    /**
+     * @return true when lease was taken over from expired owner
+     */
+    public boolean isReclaimed() {
+        return reclaimed;
+    }
+
+    /**
+     * Releases lease when it is still owned.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!lost && heartbeat()) {
+            Files.deleteIfExists(path);
+        }
+        lost = true;
+    }
+}
@@ -0,0 +1,208 @@
+package pdftable.shard;
+
+import pdftable.ParsedTablePageConsumer;
+import pdftable.models.ParsedTablePage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Work queue of sharded extraction, stored in directory shared by all processes (e.g. on network filesystem).
+ * No broker is needed, processes coordinate by atomic file operations only:
+ * <pre>
+ * jobs/&lt;job&gt;.job        page count of document, written once all shards of job are added
+ * tasks/&lt;shard&gt;.task     shard description
+ * leases/&lt;shard&gt;.lease   lease of worker processing the shard, see {@link ShardLease}
+ * results/&lt;shard&gt;.pages  parsed pages of completed shard
+ * results/&lt;shard&gt;.failed error message of failed shard
+ * </pre>
+ * Files are written under temporary names and moved to final names atomically, so readers never see partial files.
+ */
+public class ShardQueue {
+
+    private static final int MAGIC = 0x50545348;
+    private static final int VERSION = 2;
+
+    private static final String JOB_SUFFIX = ".job";
+    private static final String TASK_SUFFIX = ".task";
+    private static final String LEASE_SUFFIX = ".lease";
+    private static final String RESULT_SUFFIX = ".pages";
+    private static final String FAILURE_SUFFIX = ".failed";
+
+    private final Path jobsDir;
+    private final Path tasksDir;
+    private final Path leasesDir;
+    private final Path resultsDir;
+
+    /**
+     * Opens queue in given directory, creating it when needed.
+     *
+     * @param root queue directory
+     * @throws IOException when directories cannot be created
+     */
+    public ShardQueue(Path root) throws IOException {
+        this.jobsDir = Files.createDirectories(root.resolve("jobs"));
+        this.tasksDir = Files.createDirectories(root.resolve("tasks"));
+        this.leasesDir = Files.createDirectories(root.resolve("leases"));
+        this.resultsDir = Files.createDirectories(root.resolve("results"));
+    }
+
+    void addTask(ShardTask task) throws IOException {
+        Path tmp = tempFile(tasksDir);
+        task.write(tmp);
+        // task left by interrupted submission is replaced by identical one
+        Files.move(tmp, tasksDir.resolve(task.getId() + TASK_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Marks job as fully submitted.
+     *
+     * @param jobId     job id
+     * @param pageCount number of document pages, covered by shards of the job
+     */
+    void writeJob(String jobId, int pageCount) throws IOException {
+        Path tmp = tempFile(jobsDir);
+        Files.write(tmp, Integer.toString(pageCount).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, jobsDir.resolve(jobId + JOB_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return number of document pages, -1 when job was not fully submitted
+     */
+    int readJobPageCount(String jobId) throws IOException {
+        try {
+            return Integer.parseInt(new String(Files.readAllBytes(jobsDir.resolve(jobId + JOB_SUFFIX)), StandardCharsets.UTF_8).trim());
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    void removeJob(String jobId) throws IOException {
+        Files.deleteIfExists(jobsDir.resolve(jobId + JOB_SUFFIX));
+    }
+
+    /**
+     * @return all tasks sorted by id, i.e. by job and start page
+     * @throws IOException
+     */
+    public List<ShardTask> listTasks() throws IOException {
+        List<ShardTask> out = new ArrayList<>();
+        for (Path path : list(tasksDir, TASK_SUFFIX)) {
+            try {
+                out.add(ShardTask.read(path));
+            } catch (NoSuchFileException e) {
+                // removed by coordinator meanwhile
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @param jobId job id
+     * @return tasks of given job sorted by start page
+     * @throws IOException
+     */
+    public List<ShardTask> listTasks(String jobId) throws IOException {
+        return listTasks().stream().filter(t -> t.getJobId().equals(jobId)).collect(Collectors.toList());
+    }
+
+    /**
+     * @return true when shard was completed or failed
+     */
+    public boolean isDone(String shardId) {
+        return Files.exists(resultsDir.resolve(shardId + RESULT_SUFFIX)) || Files.exists(resultsDir.resolve(shardId + FAILURE_SUFFIX));
+    }
+
+    ShardLease tryLease(String shardId, String workerId, long timeoutMillis) throws IOException {
+        return ShardLease.tryAcquire(leasesDir.resolve(shardId + LEASE_SUFFIX), workerId, timeoutMillis);
+    }
+
+    void writeResult(String shardId, List<ParsedTablePage> pages) throws IOException {
+        Path tmp = tempFile(resultsDir);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(pages.size());
+            for (ParsedTablePage page : pages) {
+                page.writeTo(out);
+            }
+        }
+        // shard processed twice after lease takeover produces the same result, replacing it is harmless
+        Files.move(tmp, resultsDir.resolve(shardId + RESULT_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void writeFailure(String shardId, String message) throws IOException {
+        Path tmp = tempFile(resultsDir);
+        Files.write(tmp, message.getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, resultsDir.resolve(shardId + FAILURE_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Removes failure of shard, so that it is processed again.
+     */
+    void clearFailure(String shardId) throws IOException {
+        Files.deleteIfExists(resultsDir.resolve(shardId + FAILURE_SUFFIX));
+    }
+
+    /**
+     * @return error message of failed shard, null when shard did not fail
+     */
+    String readFailure(String shardId) throws IOException {
+        Path path = resultsDir.resolve(shardId + FAILURE_SUFFIX);
+        return Files.exists(path) ? new String(Files.readAllBytes(path), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Passes pages of completed shard to consumer.
+     *
+     * @return number of pages
+     */
+    int readResult(String shardId, ParsedTablePageConsumer consumer) throws IOException {
+        Path path = resultsDir.resolve(shardId + RESULT_SUFFIX);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("unknown format of shard result " + path);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                consumer.accept(ParsedTablePage.readFrom(in));
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Removes task, lease and result files of shard.
+     */
+    void remove(String shardId) throws IOException {
+        Files.deleteIfExists(tasksDir.resolve(shardId + TASK_SUFFIX));
+        Files.deleteIfExists(resultsDir.resolve(shardId + RESULT_SUFFIX));
+        Files.deleteIfExists(resultsDir.resolve(shardId + FAILURE_SUFFIX));
+        Files.deleteIfExists(leasesDir.resolve(shardId + LEASE_SUFFIX));
+    }
+
+    private static Path tempFile(Path dir) {
+        return dir.resolve("." + UUID.randomUUID() + ".tmp");
+    }
+
+    private static List<Path> list(Path dir, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(suffix)).sorted().collect(Collectors.toList());
+        }
+    }
+}
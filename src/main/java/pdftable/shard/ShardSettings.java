@@ -0,0 +1,125 @@
+package pdftable.shard;
+
+/**
+ * Sharded extraction settings. All processes sharing a queue should use the same lease timeout.
+ */
+public class ShardSettings {
+
+    public static class ShardSettingsBuilder {
+
+        // --------------
+        // DEFAULT VALUES
+        // --------------
+
+        // SHARDING
+        private int pagesPerShard = 20;
+
+        // LEASES
+        private long leaseTimeoutMillis = 60_000;
+        private long heartbeatIntervalMillis = 10_000;
+
+        // POLLING
+        private long pollIntervalMillis = 1_000;
+
+        // RETRIES
+        private int maxAttempts = 3;
+
+        public ShardSettingsBuilder setPagesPerShard(int pagesPerShard) {
+            this.pagesPerShard = pagesPerShard;
+            return this;
+        }
+
+        /**
+         * Lease not refreshed for this long is considered abandoned and its shard is handed out again.
+         * Must be much longer than heartbeat interval and than clock skew between machines.
+         */
+        public ShardSettingsBuilder setLeaseTimeoutMillis(long leaseTimeoutMillis) {
+            this.leaseTimeoutMillis = leaseTimeoutMillis;
+            return this;
+        }
+
+        public ShardSettingsBuilder setHeartbeatIntervalMillis(long heartbeatIntervalMillis) {
+            this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Delay between queue scans while all pending shards are leased by other workers.
+         */
+        public ShardSettingsBuilder setPollIntervalMillis(long pollIntervalMillis) {
+            this.pollIntervalMillis = pollIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Number of attempts of single worker to process shard failing with I/O error, e.g. when shared
+         * storage is temporarily unavailable, before the shard is recorded as failed.
+         */
+        public ShardSettingsBuilder setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public ShardSettings build() {
+            if (pagesPerShard < 1) {
+                throw new IllegalArgumentException("pages per shard must be positive");
+            }
+            if (heartbeatIntervalMillis >= leaseTimeoutMillis) {
+                throw new IllegalArgumentException("heartbeat interval must be shorter than lease timeout");
+            }
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("max attempts must be positive");
+            }
+            return new ShardSettings(this);
+        }
+    }
+
+    // SHARDING
+    private final int pagesPerShard;
+
+    // LEASES
+    private final long leaseTimeoutMillis;
+    private final long heartbeatIntervalMillis;
+
+    // POLLING
+    private final long pollIntervalMillis;
+
+    // RETRIES
+    private final int maxAttempts;
+
+    private ShardSettings(ShardSettingsBuilder builder) {
+        this.pagesPerShard = builder.pagesPerShard;
+        this.leaseTimeoutMillis = builder.leaseTimeoutMillis;
+        this.heartbeatIntervalMillis = builder.heartbeatIntervalMillis;
+        this.pollIntervalMillis = builder.pollIntervalMillis;
+        this.maxAttempts = builder.maxAttempts;
+    }
+
+    public ShardSettings() {
+        this(new ShardSettingsBuilder());
+    }
+
+    public static ShardSettingsBuilder getBuilder() {
+        return new ShardSettingsBuilder();
+    }
+
+    public int getPagesPerShard() {
+        return pagesPerShard;
+    }
+
+    public long getLeaseTimeoutMillis() {
+        return leaseTimeoutMillis;
+    }
+
+    public long getHeartbeatIntervalMillis() {
+        return heartbeatIntervalMillis;
+    }
+
+    public long getPollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
@@ -0,0 +1,91 @@
+package pdftable.shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Page range of single document, unit of work handed out by {@link ShardQueue}.
+ */
+public class ShardTask {
+
+    private final String id;
+    private final String jobId;
+    private final Path document;
+    private final int startPage;
+    private final int endPage;
+    private final String settingsFingerprint;
+
+    /**
+     * @param jobId               id of document job the shard belongs to
+     * @param document            document path, must be accessible to all workers
+     * @param startPage           first page (first page == 1)
+     * @param endPage             last page (inclusive)
+     * @param settingsFingerprint extraction settings fingerprint, workers with other settings skip the shard
+     */
+    public ShardTask(String jobId, Path document, int startPage, int endPage, String settingsFingerprint) {
+        // zero padded start page keeps shards of a job sorted by page when sorted by id
+        this.id = String.format(Locale.ROOT, "%s.%06d", jobId, startPage);
+        this.jobId = jobId;
+        this.document = document;
+        this.startPage = startPage;
+        this.endPage = endPage;
+        this.settingsFingerprint = settingsFingerprint;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Path getDocument() {
+        return document;
+    }
+
+    public int getStartPage() {
+        return startPage;
+    }
+
+    public int getEndPage() {
+        return endPage;
+    }
+
+    public String getSettingsFingerprint() {
+        return settingsFingerprint;
+    }
+
+    void write(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("job", jobId);
+        properties.setProperty("document", document.toString());
+        properties.setProperty("startPage", Integer.toString(startPage));
+        properties.setProperty("endPage", Integer.toString(endPage));
+        properties.setProperty("settings", settingsFingerprint);
+        try (OutputStream out = Files.newOutputStream(path)) {
+            properties.store(out, null);
+        }
+    }
+
+    static ShardTask read(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        }
+        return new ShardTask(properties.getProperty("job"), Paths.get(properties.getProperty("document")),
+                Integer.parseInt(properties.getProperty("startPage")), Integer.parseInt(properties.getProperty("endPage")),
+                properties.getProperty("settings"));
+    }
+
+    @Override
+    public String toString() {
+        return id + " (" + document + " pages " + startPage + "-" + endPage + ")";
+    }
+}
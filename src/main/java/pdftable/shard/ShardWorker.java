@@ -0,0 +1,215 @@
+package pdftable.shard;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import pdftable.PdfTableReader;
+import pdftable.models.ParsedTablePage;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Takes shards from {@link ShardQueue}, parses them and stores their results in the queue.
+ * Any number of workers in any number of processes can share one queue.
+ * <p>
+ * Worker runs until no pending shard with its extraction settings is left. Shards leased by other workers
+ * are waited for, so that they can be reclaimed when their worker stops sending heartbeats.
+ * <p>
+ * Shard failing with I/O error (e.g. shared storage temporarily unavailable) is left pending and retried,
+ * it is recorded as failed only after {@link ShardSettings#getMaxAttempts()} attempts of this worker.
+ * Other errors are recorded as failure at once.
+ */
+public class ShardWorker {
+
+    private static class LeaseLostException extends IOException {
+        LeaseLostException(String shardId) {
+            super("lease of shard " + shardId + " lost");
+        }
+    }
+
+    private final ShardQueue queue;
+    private final PdfTableReader reader;
+    private final ShardSettings settings;
+    private final String workerId;
+    private final int threads;
+    private final PrintStream log;
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+
+    /**
+     * @param queue    shard queue
+     * @param reader   reader used for parsing, only shards submitted with the same settings are processed
+     * @param settings sharding settings
+     * @param workerId worker id unique among all processes sharing the queue, see {@link #getDefaultWorkerId()}
+     * @param threads  number of shards processed in parallel
+     * @param log      progress log, may be null
+     */
+    public ShardWorker(ShardQueue queue, PdfTableReader reader, ShardSettings settings, String workerId, int threads, PrintStream log) {
+        this.queue = queue;
+        this.reader = reader;
+        this.settings = settings;
+        this.workerId = workerId;
+        this.threads = threads;
+        this.log = log;
+    }
+
+    /**
+     * @return id of current process, "pid@host" on most JVMs
+     */
+    public static String getDefaultWorkerId() {
+        return ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    /**
+     * Processes shards until queue is drained.
+     *
+     * @return number of shards completed by this worker
+     * @throws IOException when queue cannot be accessed
+     */
+    public int run() throws IOException {
+        AtomicInteger completed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pdf-table-shard-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> loops = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String id = threads == 1 ? workerId : workerId + "#" + i;
+                loops.add(executor.submit(() -> {
+                    workLoop(id, heartbeats, completed);
+                    return null;
+                }));
+            }
+            for (Future<?> loop : loops) {
+                loop.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            heartbeats.shutdownNow();
+        }
+        return completed.get();
+    }
+
+    private void workLoop(String id, ScheduledExecutorService heartbeats, AtomicInteger completed) throws IOException, InterruptedException {
+        String fingerprint = reader.getSettings().getExtractionFingerprint();
+        while (true) {
+            boolean pending = false;
+            boolean processed = false;
+            for (ShardTask task : queue.listTasks()) {
+                if (!fingerprint.equals(task.getSettingsFingerprint()) || queue.isDone(task.getId())) {
+                    continue;
+                }
+                pending = true;
+                ShardLease lease = queue.tryLease(task.getId(), id, settings.getLeaseTimeoutMillis());
+                if (lease == null) {
+                    continue;
+                }
+                try {
+                    // shard may have been completed and released by another worker since the scan
+                    if (queue.isDone(task.getId())) {
+                        continue;
+                    }
+                    if (lease.isReclaimed()) {
+                        log(id + " reclaimed " + task);
+                    }
+                    if (process(task, lease, heartbeats)) {
+                        completed.incrementAndGet();
+                    }
+                    // shard is not done when it is to be retried
+                    processed = queue.isDone(task.getId());
+                } finally {
+                    lease.close();
+                }
+                // rescan, other shards may have been completed meanwhile
+                break;
+            }
+            if (!pending) {
+                return;
+            }
+            if (!processed) {
+                Thread.sleep(settings.getPollIntervalMillis());
+            }
+        }
+    }
+
+    /**
+     * Parses shard and stores its result while lease is refreshed in background.
+     *
+     * @return true when result was stored
+     */
+    private boolean process(ShardTask task, ShardLease lease, ScheduledExecutorService heartbeats) throws IOException {
+        long interval = settings.getHeartbeatIntervalMillis();
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleWithFixedDelay(lease::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+        try {
+            List<ParsedTablePage> pages = new ArrayList<>();
+            try (PDDocument document = PDDocument.load(task.getDocument().toFile())) {
+                reader.parsePdfTablePages(document, task.getStartPage(), task.getEndPage(), page -> {
+                    if (lease.isLost()) {
+                        throw new LeaseLostException(task.getId());
+                    }
+                    pages.add(page);
+                });
+            }
+            if (!lease.heartbeat()) {
+                throw new LeaseLostException(task.getId());
+            }
+            queue.writeResult(task.getId(), pages);
+            log("done " + task);
+            return true;
+        } catch (LeaseLostException e) {
+            log(e.getMessage());
+            return false;
+        } catch (IOException e) {
+            if (!lease.heartbeat()) {
+                return false;
+            }
+            if (attempts.merge(task.getId(), 1, Integer::sum) < settings.getMaxAttempts()) {
+                log("retrying " + task + ": " + e);
+                return false;
+            }
+            fail(task, e);
+            return false;
+        } catch (RuntimeException e) {
+            if (!lease.heartbeat()) {
+                return false;
+            }
+            fail(task, e);
+            return false;
+        } finally {
+            heartbeat.cancel(false);
+        }
+    }
+
+    private void fail(ShardTask task, Exception e) throws IOException {
+        queue.writeFailure(task.getId(), e.toString());
+        log("failed " + task + ": " + e);
+    }
+
+    private void log(String message) {
+        if (log != null) {
+            log.println(message);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package pdftable.trace;
+
+/**
+ * Single timed pipeline stage. Created by {@link PipelineEvents#begin(Stage, int)} and finished by {@link #close()}.
+ * Setters return this event so that attributes can be chained.
+ */
+public interface PipelineEvent {
+
+    PipelineEvent setDpi(int dpi);
+
+    PipelineEvent setImageSize(int width, int height);
+
+    PipelineEvent setContourCount(int contourCount);
+
+    PipelineEvent setCellCount(int cellCount);
+
+    /**
+     * Ends stage and records event.
+     */
+    void close();
+}
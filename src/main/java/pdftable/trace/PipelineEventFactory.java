@@ -0,0 +1,12 @@
+package pdftable.trace;
+
+/**
+ * Creates started pipeline events. Implemented by Java Flight Recorder backend available on JDK 11+.
+ */
+public interface PipelineEventFactory {
+
+    /**
+     * @return started event or null when events are disabled
+     */
+    PipelineEvent begin(Stage stage, int pageNumber);
+}
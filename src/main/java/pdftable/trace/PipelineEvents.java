@@ -0,0 +1,75 @@
+package pdftable.trace;
+
+/**
+ * Entry point of pipeline instrumentation.
+ * <p>
+ * On JDK 11+ events are emitted as Java Flight Recorder events {@code pdftable.PipelineStage}
+ * (implementation is compiled from {@code src/main/java11} when building on JDK 11+).
+ * On Java 8, or when the JFR backend is not present, every call returns shared no-op event,
+ * which JIT compiles away.
+ */
+public final class PipelineEvents {
+
+    private static final String JFR_FACTORY = "pdftable.trace.JfrPipelineEventFactory";
+
+    private static final PipelineEventFactory FACTORY = loadFactory();
+
+    private PipelineEvents() {
+    }
+
+    /**
+     * Starts timing of page processing stage.
+     *
+     * @param stage      processing stage
+     * @param pageNumber page number (first page == 1), 0 when unknown
+     * @return started event, must be ended with {@link PipelineEvent#close()}
+     */
+    public static PipelineEvent begin(Stage stage, int pageNumber) {
+        PipelineEvent event = FACTORY == null ? null : FACTORY.begin(stage, pageNumber);
+        return event == null ? NoopPipelineEvent.INSTANCE : event;
+    }
+
+    /**
+     * @return true when events are emitted to Java Flight Recorder
+     */
+    public static boolean isFlightRecorderAvailable() {
+        return FACTORY != null;
+    }
+
+    private static PipelineEventFactory loadFactory() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (PipelineEventFactory) Class.forName(JFR_FACTORY).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private enum NoopPipelineEvent implements PipelineEvent {
+        INSTANCE;
+
+        @Override
+        public PipelineEvent setDpi(int dpi) {
+            return this;
+        }
+
+        @Override
+        public PipelineEvent setImageSize(int width, int height) {
+            return this;
+        }
+
+        @Override
+        public PipelineEvent setContourCount(int contourCount) {
+            return this;
+        }
+
+        @Override
+        public PipelineEvent setCellCount(int cellCount) {
+            return this;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
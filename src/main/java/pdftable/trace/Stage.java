@@ -0,0 +1,17 @@
+package pdftable.trace;
+
+/**
+ * Processing stages of single page reported as pipeline events.
+ */
+public enum Stage {
+    RENDER,
+    MAT_CONVERSION,
+    THRESHOLD,
+    CONTOURS,
+    MASK,
+    XOR,
+    CONTOURS2,
+    APPROXIMATION,
+    TEXT_LAYOUT,
+    TEXT_EXTRACTION
+}
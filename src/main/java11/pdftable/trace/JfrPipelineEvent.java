@@ -0,0 +1,68 @@
+package pdftable.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of single page processing stage.
+ */
+@Name("pdftable.PipelineStage")
+@Label("PDF Table Pipeline Stage")
+@Category({"PDF Table", "Pipeline"})
+@Description("Time spent in single processing stage of PDF page")
+class JfrPipelineEvent extends Event implements PipelineEvent {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Page Number")
+    int pageNumber;
+
+    @Label("DPI")
+    int dpi;
+
+    @Label("Image Width")
+    int imageWidth;
+
+    @Label("Image Height")
+    int imageHeight;
+
+    @Label("Contour Count")
+    int contourCount;
+
+    @Label("Cell Count")
+    int cellCount;
+
+    @Override
+    public PipelineEvent setDpi(int dpi) {
+        this.dpi = dpi;
+        return this;
+    }
+
+    @Override
+    public PipelineEvent setImageSize(int width, int height) {
+        this.imageWidth = width;
+        this.imageHeight = height;
+        return this;
+    }
+
+    @Override
+    public PipelineEvent setContourCount(int contourCount) {
+        this.contourCount = contourCount;
+        return this;
+    }
+
+    @Override
+    public PipelineEvent setCellCount(int cellCount) {
+        this.cellCount = cellCount;
+        return this;
+    }
+
+    @Override
+    public void close() {
+        commit();
+    }
+}
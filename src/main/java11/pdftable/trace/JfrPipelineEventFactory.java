@@ -0,0 +1,19 @@
+package pdftable.trace;
+
+/**
+ * Java Flight Recorder backend of {@link PipelineEvents}, loaded reflectively on JDK 11+.
+ */
+public class JfrPipelineEventFactory implements PipelineEventFactory {
+
+    @Override
+    public PipelineEvent begin(Stage stage, int pageNumber) {
+        JfrPipelineEvent event = new JfrPipelineEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.stage = stage.name();
+        event.pageNumber = pageNumber;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,15 @@
+package pdftable.cli;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual thread backend of {@link IoExecutors}, loaded reflectively on JDK 21+.
+ */
+public class VirtualThreadIoExecutorFactory implements IoExecutorFactory {
+
+    @Override
+    public ExecutorService newExecutor(String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+    }
+}
@@ -0,0 +1,94 @@
+package pdftable;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures time to first page in fresh JVM, i.e. cold start of short-lived worker.
+ */
+public class ColdStartBenchmarkTest {
+
+    private static final String TEST_FILENAME = "test_tables.pdf";
+
+    /**
+     * Entry point of benchmarked JVM. Prints uptime at first page and whether OpenCV natives were loaded.
+     *
+     * @param args mode ("png", "parse" or "text") and PDF file path
+     */
+    public static void main(String[] args) throws IOException {
+        Path pdf = Paths.get(args[1]);
+        try (PDDocument document = PDDocument.load(pdf.toFile())) {
+            PdfTableReader reader = new PdfTableReader();
+            if ("text".equals(args[0])) {
+                reader = reader.withSettings(PdfTableSettings.getBuilder().setDetectionMode(DetectionMode.TEXT_ALIGNMENT).build());
+            }
+            if ("png".equals(args[0])) {
+                Path outputDir = Files.createTempDirectory("pdf-table-cold-start");
+                reader.savePdfPageAsPNG(document, 1, outputDir);
+                Files.delete(outputDir.resolve("page_1.png"));
+                Files.delete(outputDir);
+            } else {
+                reader.parsePdfTablePage(document, 1);
+            }
+        }
+        System.out.println(ManagementFactory.getRuntimeMXBean().getUptime() + " " + OpenCvLoader.isLoaded());
+    }
+
+    @Test
+    public void pngExportDoesNotLoadNatives() throws Exception {
+        String[] result = runFreshJvm("png");
+        System.out.println("time to first page - png: " + Long.parseLong(result[0]) / 1000.0);
+        Assert.assertEquals(result[1], "false");
+    }
+
+    @Test
+    public void parseLoadsBundledNatives() throws Exception {
+        String[] result = runFreshJvm("parse");
+        System.out.println("time to first page - parse: " + Long.parseLong(result[0]) / 1000.0);
+        Assert.assertEquals(result[1], "true");
+    }
+
+    @Test
+    public void textAlignmentDoesNotLoadNatives() throws Exception {
+        String[] result = runFreshJvm("text");
+        System.out.println("time to first page - text alignment: " + Long.parseLong(result[0]) / 1000.0);
+        Assert.assertEquals(result[1], "false");
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private String[] runFreshJvm(String mode) throws Exception {
+        File pdf = new File(getClass().getClassLoader().getResource(TEST_FILENAME).getFile());
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ColdStartBenchmarkTest.class.getName());
+        command.add(mode);
+        command.add(pdf.getAbsolutePath());
+
+        // java.library.path is not passed on, so parsing must use natives bundled in openpnp jar
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        Assert.assertEquals(process.waitFor(), 0, String.join("\n", lines));
+        return lines.get(lines.size() - 1).split(" ");
+    }
+}
@@ -0,0 +1,132 @@
+package pdftable;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import pdftable.models.ParsedTablePage;
+import pdftable.support.GoldenOutput;
+import pdftable.support.PerformanceBaseline;
+import pdftable.support.SyntheticPdfGenerator;
+import pdftable.support.SyntheticPdfGenerator.BorderStyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs corpus of documents through the reader and compares results with golden outputs stored
+ * in {@code src/test/resources/golden}, cell by cell. Throughput and allocation of each document are compared with
+ * checked-in baseline.
+ * <p>
+ * System properties:
+ * <ul>
+ * <li>{@code pdftable.golden.update=true} - rewrites golden outputs and baseline with current results</li>
+ * <li>{@code pdftable.perf.tolerance} - allowed relative performance regression, default 0.5</li>
+ * </ul>
+ */
+public class GoldenRegressionTest {
+
+    private static final Path GOLDEN_DIR = Paths.get("src", "test", "resources", "golden");
+    private static final Path BASELINE_FILE = GOLDEN_DIR.resolve("baseline.properties");
+    private static final boolean UPDATE = Boolean.getBoolean("pdftable.golden.update");
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("pdftable.perf.tolerance", "0.5"));
+
+    private interface DocumentSource {
+        PDDocument open() throws IOException;
+    }
+
+    private PerformanceBaseline baseline;
+
+    @BeforeClass
+    public void loadBaseline() throws IOException {
+        baseline = PerformanceBaseline.load(BASELINE_FILE);
+    }
+
+    @AfterClass
+    public void saveBaseline() throws IOException {
+        if (UPDATE) {
+            baseline.save(BASELINE_FILE);
+        }
+    }
+
+    @DataProvider
+    public Object[][] corpus() {
+        return new Object[][]{
+                {"test_tables", (DocumentSource) this::openTestTables},
+                {"synthetic_lines", generated(SyntheticPdfGenerator.getBuilder()
+                        .setPageCount(5).setRows(20).setColumns(6))},
+                {"synthetic_filled_merged", generated(SyntheticPdfGenerator.getBuilder()
+                        .setPageCount(3).setRows(30).setColumns(8).setMergeEveryNthRow(4)
+                        .setBorderStyle(BorderStyle.FILLED_RECTS).setFont(PDType1Font.TIMES_ROMAN))},
+                {"synthetic_dense", generated(SyntheticPdfGenerator.getBuilder()
+                        .setPageSize(PDRectangle.A3).setRows(100).setColumns(16).setFontSize(6))},
+        };
+    }
+
+    @Test(dataProvider = "corpus")
+    public void matchesGoldenOutput(String name, DocumentSource source) throws IOException {
+        try (PDDocument document = source.open()) {
+            PdfTableReader reader = new PdfTableReader();
+            // warm-up, so that measurement of first document does not include class loading and JIT
+            reader.parsePdfTablePage(document, 1);
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long allocatedBefore = getAllocatedBytes(threads);
+            long start = System.nanoTime();
+            List<ParsedTablePage> pages = reader.parsePdfTablePages(document, 1, document.getNumberOfPages());
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocatedBefore < 0 ? -1 : getAllocatedBytes(threads) - allocatedBefore;
+
+            double pagesPerSecond = pages.size() * 1e9 / elapsed;
+            long allocatedPerPage = allocated < 0 ? -1 : allocated / pages.size();
+            System.out.println(String.format("golden %s: %.2f pages/s, %d KB allocated/page",
+                    name, pagesPerSecond, allocatedPerPage / 1024));
+
+            GoldenOutput actual = GoldenOutput.of(pages);
+            Path goldenFile = GOLDEN_DIR.resolve(name + ".txt");
+            if (UPDATE) {
+                actual.write(goldenFile);
+                baseline.put(name, pagesPerSecond, allocatedPerPage);
+                return;
+            }
+
+            List<String> differences = GoldenOutput.read(goldenFile).diff(actual);
+            Assert.assertTrue(differences.isEmpty(), name + " differs from " + goldenFile + ":\n"
+                    + String.join("\n", differences.subList(0, Math.min(50, differences.size()))));
+            List<String> regressions = baseline.check(name, pagesPerSecond, allocatedPerPage, TOLERANCE);
+            Assert.assertTrue(regressions.isEmpty(), String.join("\n", regressions));
+        }
+    }
+
+    /**
+     * @return bytes allocated by current thread so far, -1 when JVM does not support measurement
+     */
+    private static long getAllocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private PDDocument openTestTables() throws IOException {
+        return PDDocument.load(new File(getClass().getClassLoader().getResource("test_tables.pdf").getFile()));
+    }
+
+    private static DocumentSource generated(SyntheticPdfGenerator.SyntheticPdfGeneratorBuilder builder) {
+        return () -> builder.build().generate();
+    }
+}
@@ -0,0 +1,154 @@
+package pdftable;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import pdftable.models.ParsedTablePage;
+import pdftable.support.GoldenOutput;
+import pdftable.support.SyntheticPdfGenerator;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PageBuffersTest {
+
+    private static final int BENCHMARK_PAGES = 20;
+    private static final int BENCHMARK_DPI = 200;
+
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    public void grayscaleConversionMatchesPngDecoding() throws IOException {
+        File file = new File(getClass().getClassLoader().getResource("test_tables.pdf").getFile());
+        try (PDDocument document = PDDocument.load(file)) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            // pages 2 and 3 are colored
+            for (int page = 0; page < 4; page++) {
+                BufferedImage bi = renderer.renderImageWithDPI(page, 120, ImageType.RGB);
+                Mat expected = Utils.bufferedImage2GrayscaleMat(bi);
+                Mat actual = Utils.rgbImage2GrayscaleMat(bi, new byte[bi.getWidth() * bi.getHeight()], new Mat());
+                Mat diff = new Mat();
+                Core.absdiff(expected, actual, diff);
+                Assert.assertEquals(Core.countNonZero(diff), 0, "differing pixels of page " + (page + 1));
+            }
+        }
+    }
+
+    @Test
+    public void reallocatesImageOnlyWhenSizeChanges() {
+        PageBuffers buffers = new PageBuffers();
+        BufferedImage first = buffers.getImage(100, 50);
+        Assert.assertSame(buffers.getImage(100, 50), first);
+        Assert.assertEquals(buffers.getImageAllocations(), 1);
+        Assert.assertNotSame(buffers.getImage(50, 100), first);
+        Assert.assertEquals(buffers.getImageAllocations(), 2);
+    }
+
+    @Test
+    public void suppliedBuffersAreReusedAcrossPages() throws IOException {
+        SyntheticPdfGenerator generator = SyntheticPdfGenerator.getBuilder().setPageCount(5).setRows(10).setColumns(4).build();
+        try (PDDocument document = generator.generate()) {
+            PdfTableReader reader = new PdfTableReader();
+            PageBuffers buffers = new PageBuffers();
+            List<ParsedTablePage> pooled = new ArrayList<>();
+            reader.parsePdfTablePages(document, 1, 5, buffers, pooled::add);
+            Assert.assertEquals(buffers.getImageAllocations(), 1);
+            buffers.release();
+
+            PdfTableReader unpooledReader = reader.withSettings(PdfTableSettings.getBuilder().setRenderBufferPooling(false).build());
+            List<ParsedTablePage> unpooled = unpooledReader.parsePdfTablePages(document, 1, 5);
+            Assert.assertEquals(GoldenOutput.of(pooled).diff(GoldenOutput.of(unpooled)), new ArrayList<String>());
+        }
+    }
+
+    @Test
+    public void threadBuffersAreReleasedOnClose() throws IOException {
+        PageBufferPool pool = new PageBufferPool();
+        PageBuffers buffers = pool.get();
+        Assert.assertSame(pool.get(), buffers);
+        buffers.getImage(100, 50);
+        pool.release();
+        Assert.assertNotSame(pool.get(), buffers);
+
+        SyntheticPdfGenerator generator = SyntheticPdfGenerator.getBuilder().setPageCount(2).build();
+        try (PDDocument document = generator.generate()) {
+            PdfTableReader reader = new PdfTableReader();
+            List<ParsedTablePage> first = reader.parsePdfTablePages(document, 1, 2);
+            reader.close();
+            // buffers are allocated again
+            List<ParsedTablePage> second = reader.parsePdfTablePages(document, 1, 2);
+            Assert.assertEquals(GoldenOutput.of(second).diff(GoldenOutput.of(first)), new ArrayList<String>());
+        }
+    }
+
+    /**
+     * Compares allocation rate and GC activity of pooled and per-page buffers.
+     */
+    @Test
+    public void pooledBuffersReduceAllocation() throws IOException {
+        SyntheticPdfGenerator generator = SyntheticPdfGenerator.getBuilder().setPageCount(BENCHMARK_PAGES).setRows(20).setColumns(6).build();
+        try (PDDocument document = generator.generate()) {
+            PdfTableSettings pooledSettings = PdfTableSettings.getBuilder().setPdfRenderingDpi(BENCHMARK_DPI).build();
+            PdfTableSettings unpooledSettings = PdfTableSettings.getBuilder(pooledSettings).setRenderBufferPooling(false).build();
+            // warm-up, so that measurements do not include class loading and JIT
+            new PdfTableReader(pooledSettings).parsePdfTablePages(document, 1, 2);
+            new PdfTableReader(unpooledSettings).parsePdfTablePages(document, 1, 2);
+
+            long[] unpooled = measure(new PdfTableReader(unpooledSettings), document);
+            long[] pooled = measure(new PdfTableReader(pooledSettings), document);
+            System.out.println(String.format("page buffers at %d dpi: unpooled %d KB/page, %d GCs, %d ms GC; "
+                            + "pooled %d KB/page, %d GCs, %d ms GC",
+                    BENCHMARK_DPI, unpooled[0] / 1024, unpooled[1], unpooled[2], pooled[0] / 1024, pooled[1], pooled[2]));
+
+            if (pooled[0] >= 0 && unpooled[0] >= 0) {
+                // at least RGB page image and its gray pixels are not allocated per page
+                float scale = BENCHMARK_DPI / 72f;
+                long pagePixels = (long) (document.getPage(0).getCropBox().getWidth() * scale)
+                        * (long) (document.getPage(0).getCropBox().getHeight() * scale);
+                Assert.assertTrue(unpooled[0] - pooled[0] > 4 * pagePixels,
+                        "pooled " + pooled[0] + " bytes/page, unpooled " + unpooled[0] + " bytes/page");
+            }
+        }
+    }
+
+    /**
+     * @return allocated bytes per page (-1 when not supported), GC count and GC time in milliseconds
+     */
+    private static long[] measure(PdfTableReader reader, PDDocument document) throws IOException {
+        System.gc();
+        long gcCount = 0;
+        long gcTime = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount -= gc.getCollectionCount();
+            gcTime -= gc.getCollectionTime();
+        }
+        long allocatedBefore = getAllocatedBytes();
+        reader.parsePdfTablePages(document, 1, BENCHMARK_PAGES, page -> {
+        });
+        long allocated = allocatedBefore < 0 ? -1 : (getAllocatedBytes() - allocatedBefore) / BENCHMARK_PAGES;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += gc.getCollectionCount();
+            gcTime += gc.getCollectionTime();
+        }
+        return new long[]{allocated, gcCount, gcTime};
+    }
+
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
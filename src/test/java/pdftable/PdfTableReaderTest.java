@@ -7,13 +7,20 @@ import org.testng.TestException;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import pdftable.debug.AsyncDebugImageSink;
+import pdftable.debug.DebugPageCapture;
 import pdftable.models.ParsedTablePage;
 
+import java.awt.geom.Rectangle2D;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -84,6 +91,53 @@ public class PdfTableReaderTest {
         reader.savePdfTablePageDebugImage(PDFdoc, 4, TEST_OUT_PATH);
     }
 
+    @Test
+    public void parsePdfTablePagesWithSampledAsyncDebugImages() throws IOException {
+        Path outDir = Files.createDirectories(TEST_OUT_PATH.resolve("sampled_debug"));
+        AsyncDebugImageSink sink = new AsyncDebugImageSink();
+        PdfTableSettings settings = PdfTableSettings.getBuilder()
+                .setDebugImages(true)
+                .setDebugFileOutputDir(outDir)
+                .setDebugFilename("sampled")
+                .setDebugImageSink(sink)
+                .setDebugSampleEveryNthPage(2)
+                .build();
+        PdfTableReader reader = new PdfTableReader(settings);
+        reader.parsePdfTablePages(PDFdoc, 1, 2);
+        sink.close();
+
+        Assert.assertTrue(Files.exists(outDir.resolve("sampled_page_1_boxes.png")));
+        Assert.assertFalse(Files.exists(outDir.resolve("sampled_page_2_boxes.png")));
+        Assert.assertFalse(Files.exists(outDir.resolve("sampled_page_1_box_000.png")));
+        Assert.assertEquals(sink.getDroppedCount(), 0);
+        // pages not sampled by count are not captured at all
+        Assert.assertTrue(settings.isDebugPageCaptured(1));
+        Assert.assertFalse(settings.isDebugPageCaptured(2));
+        Assert.assertTrue(PdfTableSettings.getBuilder(settings).setDebugSlowPageThresholdMillis(1000).build().isDebugPageCaptured(2));
+    }
+
+    @Test
+    public void debugImagesAreReleased() {
+        OpenCvLoader.load();
+        // captured page which was not sampled
+        Mat notSampled = new Mat(10, 10, CvType.CV_8UC1);
+        DebugPageCapture capture = new DebugPageCapture(TEST_OUT_PATH, "released");
+        capture.add("image", notSampled);
+        capture.release();
+        Assert.assertTrue(notSampled.empty());
+        Assert.assertEquals(capture.size(), 0);
+
+        // image dropped by closed sink
+        AsyncDebugImageSink sink = new AsyncDebugImageSink();
+        sink.close();
+        Mat dropped = new Mat(10, 10, CvType.CV_8UC1);
+        capture.add("image", dropped);
+        capture.writeTo(sink);
+        capture.release();
+        Assert.assertTrue(dropped.empty());
+        Assert.assertEquals(sink.getDroppedCount(), 1);
+    }
+
     @Test
     public void singleThreadedSavePdfPageAsPNG() throws IOException {
         long start = System.currentTimeMillis();
@@ -200,6 +254,160 @@ public class PdfTableReaderTest {
         validatePdfContent(sortedParsedPages);
     }
 
+    @Test
+    public void parallelCellExtractionMatchesSequential() throws IOException {
+        PdfTableReader sequential = new PdfTableReader(PdfTableSettings.getBuilder().setParallelCellThreshold(0).build());
+        PdfTableReader parallel = new PdfTableReader(PdfTableSettings.getBuilder().setParallelCellThreshold(1).setParallelBandCount(4).build());
+        List<ParsedTablePage> expected = sequential.parsePdfTablePages(PDFdoc, 1, PDFdoc.getNumberOfPages());
+        List<ParsedTablePage> actual = parallel.parsePdfTablePages(PDFdoc, 1, PDFdoc.getNumberOfPages());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(actual.get(i).toJson(), expected.get(i).toJson());
+        }
+        validatePdfContent(actual);
+    }
+
+    @Test
+    public void parsedPageContainsTableGeometry() throws IOException {
+        PdfTableReader reader = new PdfTableReader();
+
+        ParsedTablePage first = reader.parsePdfTablePage(PDFdoc, 1);
+        Assert.assertEquals(first.getTables().size(), 1);
+        Assert.assertEquals(first.getTable(0).getGridRowCount(), 14);
+        Assert.assertEquals(first.getTable(0).getGridColumnCount(), 6);
+
+        ParsedTablePage.ParsedTableRow heading = first.getRow(0);
+        Assert.assertEquals(heading.getCellColumnSpan(0), 6);
+        Assert.assertTrue(heading.getCellTop(0) > heading.getCellBottom(0));
+        Assert.assertTrue(heading.getCellTop(0) <= PDFdoc.getPage(0).getCropBox().getUpperRightY());
+        Assert.assertTrue(heading.getCellBottom(0) > first.getRow(1).getCellBottom(0));
+
+        ParsedTablePage.ParsedTableRow joined = first.getRow(6);
+        Assert.assertEquals(joined.getCellGridColumn(0), 0);
+        Assert.assertEquals(joined.getCellColumnSpan(0), 2);
+        Assert.assertEquals(joined.getCellGridColumn(1), 2);
+        Assert.assertEquals(normalizeWhitespaces(first.getTable(0).getCell(6, 1).getText()), "Joined 1");
+        Assert.assertSame(first.getTable(0).getCell(6, 0), first.getTable(0).getCell(6, 1));
+        Assert.assertNull(first.getTable(0).getCell(14, 0));
+        Assert.assertNull(first.getTable(0).getCell(0, -1));
+
+        ParsedTablePage fourth = reader.parsePdfTablePage(PDFdoc, 4);
+        Assert.assertEquals(fourth.getTables().size(), 3);
+        Assert.assertEquals(normalizeWhitespaces(fourth.getTable(0).getCell(0, 0).getText()), "Table 1 Heading");
+        Assert.assertEquals(fourth.getTable(0).getCell(0, 0).getColumnSpan(), 2);
+        Assert.assertEquals(normalizeWhitespaces(fourth.getTable(2).getCell(0, 0).getText()), "Table 3 Heading 1");
+    }
+
+    @Test
+    public void parsePdfTablePageRegionsMatchesFullPage() throws IOException {
+        PdfTableReader reader = new PdfTableReader();
+        ParsedTablePage full = reader.parsePdfTablePage(PDFdoc, 1);
+
+        // area around the only table on the page
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (ParsedTablePage.ParsedTableRow row : full.getRows()) {
+            for (int i = 0; i < row.getCells().size(); i++) {
+                minX = Math.min(minX, row.getCellLeft(i));
+                minY = Math.min(minY, row.getCellBottom(i));
+                maxX = Math.max(maxX, row.getCellRight(i));
+                maxY = Math.max(maxY, row.getCellTop(i));
+            }
+        }
+        Rectangle2D tableArea = new Rectangle2D.Float(minX - 10, minY - 10, maxX - minX + 20, maxY - minY + 20);
+        ParsedTablePage region = reader.parsePdfTablePageRegions(PDFdoc, 1, Collections.singletonList(tableArea));
+        Assert.assertEquals(region.toJson(), full.toJson());
+
+        // area above the table contains no cells
+        Rectangle2D empty = new Rectangle2D.Float(minX, maxY + 5, 100, 20);
+        Assert.assertTrue(reader.parsePdfTablePageRegions(PDFdoc, 1, Collections.singletonList(empty)).getRows().isEmpty());
+
+        // user space does not change with page rotation
+        try (PDDocument rotated = getTestPDF()) {
+            rotated.getPage(0).setRotation(90);
+            ParsedTablePage rotatedFull = reader.parsePdfTablePage(rotated, 1);
+            Assert.assertFalse(rotatedFull.getRows().isEmpty());
+            ParsedTablePage rotatedRegion = reader.parsePdfTablePageRegions(rotated, 1, Collections.singletonList(tableArea));
+            Assert.assertEquals(rotatedRegion.toJson(), rotatedFull.toJson());
+            Assert.assertTrue(reader.parsePdfTablePageRegions(rotated, 1, Collections.singletonList(empty)).getRows().isEmpty());
+        }
+
+        // regions are parsed with detection mode from settings
+        PdfTableReader textReader = new PdfTableReader(PdfTableSettings.getBuilder().setDetectionMode(DetectionMode.TEXT_ALIGNMENT).build());
+        Assert.assertEquals(textReader.parsePdfTablePageRegions(PDFdoc, 1, Collections.singletonList(tableArea)).toJson(),
+                textReader.parsePdfTablePage(PDFdoc, 1).toJson());
+    }
+
+    @Test
+    public void parsePdfTablePagesWithIndexReusesUnchangedPages() throws IOException {
+        Path indexFile = Files.createTempFile("pdf-table", ".idx");
+        Files.delete(indexFile);
+        try {
+            PdfTableReader reader = new PdfTableReader();
+            ExtractionIndex index = ExtractionIndex.load(indexFile);
+            List<ParsedTablePage> first = reader.parsePdfTablePages(PDFdoc, index);
+            validatePdfContent(first);
+            Assert.assertEquals(index.getParsedPageCount() + index.getReusedPageCount(), PDFdoc.getNumberOfPages());
+            index.save(indexFile);
+
+            ExtractionIndex reloaded = ExtractionIndex.load(indexFile);
+            List<ParsedTablePage> second = reader.parsePdfTablePages(PDFdoc, reloaded);
+            Assert.assertEquals(reloaded.getParsedPageCount(), 0);
+            Assert.assertEquals(reloaded.getReusedPageCount(), PDFdoc.getNumberOfPages());
+            for (int i = 0; i < first.size(); i++) {
+                Assert.assertEquals(second.get(i).toJson(), first.get(i).toJson());
+                Assert.assertEquals(second.get(i).getTables().size(), first.get(i).getTables().size());
+            }
+
+            // results produced with different settings are not reused
+            PdfTableReader otherReader = new PdfTableReader(PdfTableSettings.getBuilder().setPdfRenderingDpi(150).build());
+            otherReader.parsePdfTablePages(PDFdoc, reloaded);
+            Assert.assertEquals(reloaded.getReusedPageCount() + reloaded.getParsedPageCount(), PDFdoc.getNumberOfPages());
+            Assert.assertTrue(reloaded.getParsedPageCount() > 0);
+        } finally {
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    @Test
+    public void sharedReaderWithMixedSettingsIsThreadSafe() throws Exception {
+        List<PdfTableSettings> settings = new ArrayList<>();
+        settings.add(new PdfTableSettings());
+        settings.add(PdfTableSettings.getBuilder().setPdfRenderingDpi(150).build());
+        settings.add(PdfTableSettings.getBuilder().setCannyFiltering(true).setParallelCellThreshold(1).setParallelBandCount(3).build());
+
+        // expected results of each settings and page, computed sequentially by dedicated readers
+        String[][] expected = new String[settings.size()][PAGE_CYCLE];
+        for (int s = 0; s < settings.size(); s++) {
+            PdfTableReader dedicated = new PdfTableReader(settings.get(s));
+            for (int page = 1; page <= PAGE_CYCLE; page++) {
+                expected[s][page - 1] = dedicated.parsePdfTablePage(PDFdoc, page).toJson();
+            }
+        }
+
+        PdfTableReader shared = new PdfTableReader();
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int task = 0; task < THREAD_COUNT * 6; task++) {
+                final int s = task % settings.size();
+                final int page = task / settings.size() % PAGE_CYCLE + 1;
+                futures.add(executor.submit(() -> {
+                    PdfTableReader reader = s == 0 ? shared : shared.withSettings(settings.get(s));
+                    Assert.assertEquals(reader.parsePdfTablePage(PDFdoc, page).toJson(), expected[s][page - 1],
+                            "settings " + s + ", page " + page);
+                    return null;
+                }));
+            }
+            for (Future<Void> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // overrides do not leak into shared reader
+        Assert.assertEquals(shared.getSettings().getPdfRenderingDpi(), 120);
+        Assert.assertFalse(shared.getSettings().hasCannyFiltering());
+    }
+
     private static String normalizeWhitespaces(String input) {
         return input.replaceAll("[\\s\\u00A0]+", " ").trim();
     }
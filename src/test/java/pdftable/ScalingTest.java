@@ -0,0 +1,208 @@
+package pdftable;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import pdftable.models.ParsedTablePage;
+import pdftable.support.SyntheticPdfGenerator;
+import pdftable.support.SyntheticPdfGenerator.BorderStyle;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Correctness, throughput and memory ceilings on generated documents.
+ * Ceilings are generous, they are meant to catch complexity regressions rather than to measure small changes.
+ */
+public class ScalingTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @DataProvider
+    public Object[][] borderStyles() {
+        return new Object[][]{
+                {BorderStyle.LINES, PDType1Font.HELVETICA},
+                {BorderStyle.FILLED_RECTS, PDType1Font.TIMES_ROMAN},
+                {BorderStyle.LINES, PDType1Font.COURIER},
+        };
+    }
+
+    @Test(dataProvider = "borderStyles")
+    public void parsesBorderStyles(BorderStyle borderStyle, PDType1Font font) throws IOException {
+        SyntheticPdfGenerator generator = SyntheticPdfGenerator.getBuilder()
+                .setRows(20)
+                .setColumns(6)
+                .setBorderStyle(borderStyle)
+                .setFont(font)
+                .build();
+        try (PDDocument document = generator.generate()) {
+            ParsedTablePage page = new PdfTableReader().parsePdfTablePage(document, 1);
+            assertPage(page, generator);
+        }
+    }
+
+    @Test
+    public void borderlessTableIsNotRecognized() throws IOException {
+        SyntheticPdfGenerator generator = SyntheticPdfGenerator.getBuilder()
+                .setBorderStyle(BorderStyle.NONE)
+                .build();
+        try (PDDocument document = generator.generate()) {
+            // only glyph holes are detected as "cells", none of them contains text
+            ParsedTablePage page = new PdfTableReader().parsePdfTablePage(document, 1);
+            for (ParsedTablePage.ParsedTableRow row : page.getRows()) {
+                for (String cell : row.getCells()) {
+                    Assert.assertTrue(cell.trim().isEmpty(), cell);
+                }
+            }
+        }
+    }
+
+    @DataProvider
+    public Object[][] textAlignmentModes() {
+        return new Object[][]{{DetectionMode.TEXT_ALIGNMENT}, {DetectionMode.RASTER_WITH_TEXT_FALLBACK}};
+    }
+
+    @Test(dataProvider = "textAlignmentModes")
+    public void borderlessTableIsRecognizedByTextAlignment(DetectionMode mode) throws IOException {
+        SyntheticPdfGenerator generator = SyntheticPdfGenerator.getBuilder()
+                .setRows(20)
+                .setColumns(6)
+                .setBorderStyle(BorderStyle.NONE)
+                .build();
+        PdfTableSettings settings = PdfTableSettings.getBuilder().setDetectionMode(mode).build();
+        try (PDDocument document = generator.generate()) {
+            ParsedTablePage page = new PdfTableReader(settings).parsePdfTablePage(document, 1);
+            assertPage(page, generator);
+            Assert.assertEquals(page.getTables().size(), 1);
+            Assert.assertEquals(page.getTable(0).getGridRowCount(), 20);
+            Assert.assertEquals(page.getTable(0).getGridColumnCount(), 6);
+        }
+    }
+
+    @Test
+    public void ruledTableDoesNotFallBackToTextAlignment() throws IOException {
+        SyntheticPdfGenerator generator = SyntheticPdfGenerator.getBuilder()
+                .setRows(12)
+                .setColumns(4)
+                .setMergeEveryNthRow(3)
+                .build();
+        PdfTableSettings settings = PdfTableSettings.getBuilder().setDetectionMode(DetectionMode.RASTER_WITH_TEXT_FALLBACK).build();
+        try (PDDocument document = generator.generate()) {
+            ParsedTablePage page = new PdfTableReader(settings).parsePdfTablePage(document, 1);
+            assertPage(page, generator);
+            // merged cells are only recognized by raster engine
+            Assert.assertEquals(page.getTable(0).getCell(2, 1).getColumnSpan(), 2);
+        }
+    }
+
+    @Test
+    public void parsesMergedCells() throws IOException {
+        SyntheticPdfGenerator generator = SyntheticPdfGenerator.getBuilder()
+                .setRows(12)
+                .setColumns(4)
+                .setMergeEveryNthRow(3)
+                .build();
+        try (PDDocument document = generator.generate()) {
+            ParsedTablePage page = new PdfTableReader().parsePdfTablePage(document, 1);
+            assertPage(page, generator);
+            ParsedTablePage.ParsedTable table = page.getTable(0);
+            Assert.assertEquals(table.getGridColumnCount(), 4);
+            Assert.assertEquals(table.getCell(2, 1).getColumnSpan(), 2);
+            Assert.assertEquals(table.getCell(2, 1).getGridColumn(), 0);
+            Assert.assertEquals(table.getCell(3, 1).getColumnSpan(), 1);
+        }
+    }
+
+    @Test
+    public void parsesDensePage() throws IOException {
+        // more cells than default parallel threshold
+        SyntheticPdfGenerator generator = SyntheticPdfGenerator.getBuilder()
+                .setPageSize(PDRectangle.A3)
+                .setRows(100)
+                .setColumns(16)
+                .setFontSize(6)
+                .build();
+        try (PDDocument document = generator.generate()) {
+            long start = System.currentTimeMillis();
+            ParsedTablePage page = new PdfTableReader().parsePdfTablePage(document, 1);
+            long elapsed = System.currentTimeMillis() - start;
+            System.out.println("dense page (" + generator.getCellCount() + " cells): " + elapsed / 1000.0);
+            assertPage(page, generator);
+            Assert.assertTrue(elapsed < 30_000, "dense page took " + elapsed + " ms");
+        }
+    }
+
+    @Test
+    public void parsesHugePage() throws IOException {
+        SyntheticPdfGenerator generator = SyntheticPdfGenerator.getBuilder()
+                .setPageSize(PDRectangle.A0)
+                .setRows(120)
+                .setColumns(30)
+                .setFontSize(10)
+                .build();
+        PdfTableSettings settings = PdfTableSettings.getBuilder().setPdfRenderingDpi(72).build();
+        try (PDDocument document = generator.generate()) {
+            long start = System.currentTimeMillis();
+            ParsedTablePage page = new PdfTableReader(settings).parsePdfTablePage(document, 1);
+            long elapsed = System.currentTimeMillis() - start;
+            System.out.println("huge page (" + generator.getCellCount() + " cells): " + elapsed / 1000.0);
+            assertPage(page, generator);
+            Assert.assertTrue(elapsed < 60_000, "huge page took " + elapsed + " ms");
+        }
+    }
+
+    @Test
+    public void streamsManyPagesInBoundedMemory() throws IOException {
+        final int pages = 200;
+        SyntheticPdfGenerator generator = SyntheticPdfGenerator.getBuilder()
+                .setPageCount(pages)
+                .setRows(15)
+                .setColumns(5)
+                .build();
+        try (PDDocument document = generator.generate()) {
+            PdfTableReader reader = new PdfTableReader();
+            long[] halfTimes = new long[2];
+            long heapBefore = usedHeapAfterGc();
+            long start = System.nanoTime();
+            reader.parsePdfTablePages(document, 1, pages, page -> {
+                assertPage(page, generator);
+                if (page.getPageNum() == pages / 2) {
+                    halfTimes[0] = System.nanoTime() - start;
+                }
+            });
+            long total = System.nanoTime() - start;
+            halfTimes[1] = total - halfTimes[0];
+            long heapGrowth = usedHeapAfterGc() - heapBefore;
+            double pagesPerSecond = pages * 1e9 / total;
+
+            System.out.println(String.format("many pages: %.1f pages/s, halves %.3f/%.3f s, heap growth %d MB",
+                    pagesPerSecond, halfTimes[0] / 1e9, halfTimes[1] / 1e9, heapGrowth / MB));
+            // per-page cost must not grow with page number
+            Assert.assertTrue(halfTimes[1] < 3 * halfTimes[0], "second half " + halfTimes[1] + " ns, first half " + halfTimes[0] + " ns");
+            // parsed pages are not retained by the reader
+            Assert.assertTrue(heapGrowth < 64 * MB, "heap grew by " + heapGrowth / MB + " MB");
+            Assert.assertTrue(pagesPerSecond > 1, "throughput " + pagesPerSecond + " pages/s");
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void assertPage(ParsedTablePage page, SyntheticPdfGenerator generator) {
+        List<List<String>> expected = generator.getExpectedRows(page.getPageNum());
+        Assert.assertEquals(page.getRows().size(), expected.size(), "rows of page " + page.getPageNum());
+        for (int r = 0; r < expected.size(); r++) {
+            List<String> actual = page.getRow(r).getCells().stream()
+                    .map(c -> c.replaceAll("\\s+", " ").trim())
+                    .collect(Collectors.toList());
+            Assert.assertEquals(actual, expected.get(r), "row " + r + " of page " + page.getPageNum());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package pdftable;
+
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import pdftable.models.LogicalTable;
+import pdftable.models.ParsedTablePage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class TableStitcherTest {
+
+    private static final float ROW_HEIGHT = 20;
+
+    private static final float PAGE_HEIGHT = 842;
+
+    /**
+     * Adds row of equally wide cells starting at x == 50.
+     *
+     * @param top distance of row top from page top
+     */
+    private static void addRow(ParsedTablePage page, float top, float cellWidth, String... cells) {
+        float[] bounds = new float[cells.length * 4];
+        for (int i = 0; i < cells.length; i++) {
+            bounds[i * 4] = 50 + i * cellWidth;
+            bounds[i * 4 + 1] = PAGE_HEIGHT - top - ROW_HEIGHT;
+            bounds[i * 4 + 2] = 50 + (i + 1) * cellWidth;
+            bounds[i * 4 + 3] = PAGE_HEIGHT - top;
+        }
+        page.addRow(Arrays.asList(cells), bounds);
+    }
+
+    @Test
+    public void stitchesContinuedTableAndDropsRepeatedHeader() throws IOException {
+        List<LogicalTable> tables = new ArrayList<>();
+        TableStitcher stitcher = new TableStitcher(tables::add);
+
+        ParsedTablePage page1 = new ParsedTablePage(1);
+        addRow(page1, 700, 100, "Name", "Value");
+        addRow(page1, 720, 100, "a", "1");
+        addRow(page1, 740, 100, "b", "2");
+        stitcher.accept(page1);
+        Assert.assertTrue(tables.isEmpty());
+
+        ParsedTablePage page2 = new ParsedTablePage(2);
+        addRow(page2, 50, 100, "Name ", "Value\r\n");
+        addRow(page2, 70, 100, "c", "3");
+        addRow(page2, 300, 60, "x", "y", "z");
+        stitcher.accept(page2);
+
+        // first table is closed as soon as different table starts
+        Assert.assertEquals(tables.size(), 1);
+        LogicalTable first = tables.get(0);
+        Assert.assertEquals(first.getStartPage(), 1);
+        Assert.assertEquals(first.getEndPage(), 2);
+        Assert.assertEquals(first.getRows().size(), 4);
+        Assert.assertEquals(first.getRow(3).getCell(0), "c");
+
+        ParsedTablePage page3 = new ParsedTablePage(3);
+        addRow(page3, 50, 100, "p", "q");
+        stitcher.accept(page3);
+        stitcher.close();
+
+        Assert.assertEquals(tables.size(), 3);
+        Assert.assertEquals(tables.get(1).getStartPage(), 2);
+        Assert.assertEquals(tables.get(1).getEndPage(), 2);
+        Assert.assertEquals(tables.get(2).getStartPage(), 3);
+        Assert.assertEquals(tables.get(2).getRow(0).getCell(0), "p");
+    }
+
+    /**
+     * Adds row of cells 100 points wide, each cell belonging to given table and grid column.
+     *
+     * @param top distance of row top from page top
+     */
+    private static void addLayoutRow(ParsedTablePage page, float top, int gridRow, float[] lefts, int[] tables, String... cells) {
+        float[] bounds = new float[cells.length * 4];
+        int[] layout = new int[cells.length * 5];
+        int[] columns = new int[tables.length];
+        for (int i = 0; i < cells.length; i++) {
+            bounds[i * 4] = lefts[i];
+            bounds[i * 4 + 1] = PAGE_HEIGHT - top - ROW_HEIGHT;
+            bounds[i * 4 + 2] = lefts[i] + 100;
+            bounds[i * 4 + 3] = PAGE_HEIGHT - top;
+            layout[i * 5] = tables[i];
+            layout[i * 5 + 1] = gridRow;
+            layout[i * 5 + 2] = i > 0 && tables[i - 1] == tables[i] ? columns[i - 1] + 1 : 0;
+            layout[i * 5 + 3] = 1;
+            layout[i * 5 + 4] = 1;
+            columns[i] = layout[i * 5 + 2];
+        }
+        page.addRow(Arrays.asList(cells), bounds, layout);
+    }
+
+    private static ParsedTablePage newPage(int pageNumber) {
+        ParsedTablePage page = new ParsedTablePage(pageNumber);
+        page.setPageBounds(0, 0, 595, PAGE_HEIGHT);
+        return page;
+    }
+
+    @Test
+    public void separatesSideBySideTables() throws IOException {
+        List<LogicalTable> tables = new ArrayList<>();
+        float[] lefts = {50, 150, 350, 450};
+        int[] layoutTables = {0, 0, 1, 1};
+        try (TableStitcher stitcher = new TableStitcher(tables::add)) {
+            ParsedTablePage page = newPage(1);
+            addLayoutRow(page, 100, 0, lefts, layoutTables, "a1", "a2", "b1", "b2");
+            addLayoutRow(page, 120, 1, lefts, layoutTables, "a3", "a4", "b3", "b4");
+            stitcher.accept(page);
+        }
+        Assert.assertEquals(tables.size(), 2);
+        Assert.assertEquals(tables.get(0).getRows().size(), 2);
+        Assert.assertEquals(tables.get(0).getRow(1).getCells(), Arrays.asList("a3", "a4"));
+        Assert.assertEquals(tables.get(1).getRow(0).getCells(), Arrays.asList("b1", "b2"));
+        Assert.assertEquals(tables.get(1).getRow(0).getCellLeft(0), 350f);
+    }
+
+    @Test
+    public void stitchesOnlyTablesAtPageEdges() throws IOException {
+        List<LogicalTable> tables = new ArrayList<>();
+        try (TableStitcher stitcher = new TableStitcher(tables::add)) {
+            // table ending in the middle of page is not continued by table of the same shape on next page
+            ParsedTablePage page1 = newPage(1);
+            addRow(page1, 100, 100, "a", "1");
+            stitcher.accept(page1);
+            ParsedTablePage page2 = newPage(2);
+            addRow(page2, 50, 100, "b", "2");
+            addRow(page2, 780, 100, "c", "3");
+            stitcher.accept(page2);
+            // table at bottom of page is continued only by table at top of next page
+            ParsedTablePage page3 = newPage(3);
+            addRow(page3, 400, 100, "d", "4");
+            stitcher.accept(page3);
+        }
+        Assert.assertEquals(tables.size(), 4);
+        Assert.assertEquals(tables.get(1).getRow(0).getCell(0), "b");
+        Assert.assertEquals(tables.get(2).getRow(0).getCell(0), "c");
+        Assert.assertEquals(tables.get(3).getRow(0).getCell(0), "d");
+    }
+
+    @Test
+    public void doesNotStitchAcrossSkippedPages() throws IOException {
+        List<LogicalTable> tables = new ArrayList<>();
+        try (TableStitcher stitcher = new TableStitcher(tables::add)) {
+            ParsedTablePage page1 = new ParsedTablePage(1);
+            addRow(page1, 700, 100, "a", "1");
+            stitcher.accept(page1);
+            ParsedTablePage page3 = new ParsedTablePage(3);
+            addRow(page3, 50, 100, "b", "2");
+            stitcher.accept(page3);
+        }
+        Assert.assertEquals(tables.size(), 2);
+    }
+}
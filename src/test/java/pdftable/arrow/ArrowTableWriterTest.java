@@ -0,0 +1,155 @@
+package pdftable.arrow;
+
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import pdftable.PdfTableReader;
+import pdftable.models.ParsedTablePage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ArrowTableWriterTest {
+
+    private static final String TEST_FILENAME = "test_tables.pdf";
+
+    @Test
+    public void cellsRoundTripThroughIpcStream() throws IOException {
+        List<ParsedTablePage> pages;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArrowExportSettings settings = ArrowExportSettings.getBuilder().setBatchSize(100).setNumericValues(true).build();
+        try (PDDocument document = PDDocument.load(getTestFile())) {
+            PdfTableReader reader = new PdfTableReader();
+            pages = reader.parsePdfTablePages(document, 1, document.getNumberOfPages());
+            try (ArrowTableWriter writer = new ArrowTableWriter(out, settings)) {
+                reader.parsePdfTablePages(document, 1, document.getNumberOfPages(), writer);
+                Assert.assertEquals(writer.getRowCount(), pages.stream().flatMap(p -> p.getRows().stream()).mapToLong(r -> r.getCells().size()).sum());
+            }
+        }
+
+        List<String> expected = new ArrayList<>();
+        Set<String> unique = new HashSet<>();
+        for (ParsedTablePage page : pages) {
+            for (int iRow = 0; iRow < page.getRows().size(); iRow++) {
+                ParsedTablePage.ParsedTableRow row = page.getRow(iRow);
+                for (int iCell = 0; iCell < row.getCells().size(); iCell++) {
+                    expected.add(page.getPageNum() + "/" + iRow + "/" + iCell + "/" + row.getCellTable(iCell) + "/"
+                            + row.getCellGridRow(iCell) + "/" + row.getCellGridColumn(iCell) + "/" + row.getCell(iCell));
+                    unique.add(row.getCell(iCell));
+                }
+            }
+        }
+
+        List<String> actual = new ArrayList<>();
+        int batches = 0;
+        boolean numberFound = false;
+        try (RootAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            Field textField = root.getSchema().findField("text");
+            // in memory, dictionary encoded field has index type, values are in dictionary
+            Assert.assertEquals(textField.getType(), new ArrowType.Int(32, true));
+            Assert.assertEquals(reader.lookup(textField.getDictionary().getId()).getVectorType(), ArrowType.Utf8.INSTANCE);
+            while (reader.loadNextBatch()) {
+                batches++;
+                Assert.assertTrue(root.getRowCount() <= settings.getBatchSize());
+                VarCharVector dictionary = (VarCharVector) reader.lookup(textField.getDictionary().getId()).getVector();
+                IntVector text = (IntVector) root.getVector("text");
+                Float8Vector number = (Float8Vector) root.getVector("number");
+                for (int i = 0; i < root.getRowCount(); i++) {
+                    String cell = new String(dictionary.get(text.get(i)), StandardCharsets.UTF_8);
+                    actual.add(value(root, "page", i) + "/" + value(root, "row", i) + "/" + value(root, "cell", i) + "/"
+                            + value(root, "table", i) + "/" + value(root, "grid_row", i) + "/" + value(root, "grid_column", i) + "/" + cell);
+                    Double parsed = ArrowTableWriter.parseNumber(cell);
+                    Assert.assertEquals(number.isNull(i) ? null : number.get(i), parsed, cell);
+                    numberFound |= parsed != null;
+                }
+            }
+            Assert.assertEquals(reader.lookup(textField.getDictionary().getId()).getVector().getValueCount(), unique.size());
+        }
+        Assert.assertEquals(actual, expected);
+        Assert.assertEquals(batches, (expected.size() + settings.getBatchSize() - 1) / settings.getBatchSize());
+        Assert.assertTrue(numberFound);
+    }
+
+    @Test
+    public void numericValuesAreOptional() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ParsedTablePage page = new ParsedTablePage(1);
+        List<String> cells = new ArrayList<>();
+        cells.add("1");
+        page.addRow(cells);
+        try (ArrowTableWriter writer = new ArrowTableWriter(out, new ArrowExportSettings())) {
+            writer.accept(page);
+        }
+        try (RootAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            Assert.assertNull(root.getSchema().getFields().stream().filter(f -> f.getName().equals("number")).findAny().orElse(null));
+            Assert.assertTrue(reader.loadNextBatch());
+            Assert.assertEquals(root.getRowCount(), 1);
+            // rows without layout have no table position
+            Assert.assertTrue(root.getVector("table").isNull(0));
+            Assert.assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    @Test
+    public void closeReleasesOutputWhenStreamCannotBeStarted() {
+        boolean[] closed = {false};
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        ArrowTableWriter writer = new ArrowTableWriter(failing, new ArrowExportSettings());
+        Assert.assertThrows(IOException.class, writer::close);
+        Assert.assertTrue(closed[0]);
+    }
+
+    @Test
+    public void parsesNumbers() {
+        Assert.assertEquals(ArrowTableWriter.parseNumber("42"), Double.valueOf(42.0));
+        Assert.assertEquals(ArrowTableWriter.parseNumber(" -1.5 "), Double.valueOf(-1.5));
+        Assert.assertEquals(ArrowTableWriter.parseNumber("1,234,567.25"), Double.valueOf(1234567.25));
+        Assert.assertEquals(ArrowTableWriter.parseNumber("(1,000)"), Double.valueOf(-1000.0));
+        Assert.assertEquals(ArrowTableWriter.parseNumber(".5"), Double.valueOf(0.5));
+        Assert.assertNull(ArrowTableWriter.parseNumber(""));
+        Assert.assertNull(ArrowTableWriter.parseNumber("-"));
+        Assert.assertNull(ArrowTableWriter.parseNumber("12,34"));
+        Assert.assertNull(ArrowTableWriter.parseNumber("(5"));
+        Assert.assertNull(ArrowTableWriter.parseNumber("(-5)"));
+        Assert.assertNull(ArrowTableWriter.parseNumber("Heading 1"));
+    }
+
+    private static Object value(VectorSchemaRoot root, String name, int index) {
+        return root.getVector(name).getObject(index);
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private File getTestFile() {
+        return new File(getClass().getClassLoader().getResource(TEST_FILENAME).getFile());
+    }
+}
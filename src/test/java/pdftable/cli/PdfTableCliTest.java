@@ -0,0 +1,168 @@
+package pdftable.cli;
+
+
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import pdftable.PdfTableReader;
+import pdftable.PdfTableSettings;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+
+public class PdfTableCliTest {
+
+    private static final String TEST_FILENAME = "test_tables.pdf";
+
+    @SuppressWarnings("ConstantConditions")
+    private Path getTestPDFPath() throws Exception {
+        return Paths.get(getClass().getClassLoader().getResource(TEST_FILENAME).toURI());
+    }
+
+    @Test
+    public void processesDirectoryAndResumes() throws Exception {
+        Path inputDir = Files.createTempDirectory("pdf-table-cli-in");
+        Path outputDir = Files.createTempDirectory("pdf-table-cli-out");
+        Files.createDirectories(inputDir.resolve("nested"));
+        Files.copy(getTestPDFPath(), inputDir.resolve("a.pdf"), StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(getTestPDFPath(), inputDir.resolve("nested").resolve("b.pdf"), StandardCopyOption.REPLACE_EXISTING);
+
+        BatchExtractor extractor = new BatchExtractor(new PdfTableSettings(), OutputFormat.JSON, 2, null);
+        BatchSummary first = extractor.run(inputDir, outputDir, false);
+        Assert.assertEquals(first.getProcessedDocuments(), 2);
+        Assert.assertEquals(first.getFailedDocuments(), 0);
+        try (PDDocument pdf = PDDocument.load(getTestPDFPath().toFile())) {
+            Assert.assertEquals(first.getPages(), 2L * pdf.getNumberOfPages());
+        }
+
+        String json = new String(Files.readAllBytes(outputDir.resolve("nested/b.pdf.json")), StandardCharsets.UTF_8);
+        Assert.assertTrue(json.startsWith("{\"document\":\"nested\\/b.pdf\",\"pages\":[{\"page\":1,"));
+        Assert.assertTrue(json.contains("Heading 1"));
+
+        BatchSummary second = extractor.run(inputDir, outputDir, false);
+        Assert.assertEquals(second.getProcessedDocuments(), 0);
+        Assert.assertEquals(second.getSkippedDocuments(), 2);
+    }
+
+    @Test
+    public void failedWriteLeavesNoTemporaryOutput() throws Exception {
+        Path inputDir = Files.createTempDirectory("pdf-table-cli-in");
+        Files.copy(getTestPDFPath(), inputDir.resolve("a.pdf"), StandardCopyOption.REPLACE_EXISTING);
+        for (boolean error : new boolean[]{false, true}) {
+            // storage failing in the middle of output
+            DocumentStore failingStore = new DocumentStore() {
+                @Override
+                OutputStream create(Path output) throws IOException {
+                    return new FilterOutputStream(super.create(output)) {
+                        @Override
+                        public void write(byte[] b, int off, int len) throws IOException {
+                            if (error) {
+                                throw new NoClassDefFoundError("org/apache/arrow/vector/VectorSchemaRoot");
+                            }
+                            throw new IOException("no space left on device");
+                        }
+                    };
+                }
+            };
+            for (ExecutionMode mode : ExecutionMode.values()) {
+                Path outputDir = Files.createTempDirectory("pdf-table-cli-out");
+                ByteArrayOutputStream log = new ByteArrayOutputStream();
+                BatchSummary summary = new BatchExtractor(new PdfTableSettings(), OutputFormat.JSON, 1, new PrintStream(log, true),
+                        mode, 2, failingStore).run(inputDir, outputDir, false);
+                Assert.assertEquals(summary.getFailedDocuments(), 1, mode.name());
+                Assert.assertTrue(log.toString().contains(error ? "NoClassDefFoundError" : "no space left"), log.toString());
+                Assert.assertFalse(Files.exists(outputDir.resolve("a.pdf.json.tmp")), mode.name());
+                Assert.assertFalse(Files.exists(outputDir.resolve("a.pdf.json")), mode.name());
+            }
+        }
+    }
+
+    @Test
+    public void writesCsvForSingleFile() throws Exception {
+        Path outputDir = Files.createTempDirectory("pdf-table-cli-out");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int exitCode = PdfTableCli.run(new String[]{"--threads", "1", "--dpi", "120", getTestPDFPath().toString(), outputDir.toString()},
+                new PrintStream(out), System.err);
+        Assert.assertEquals(exitCode, 0);
+        Assert.assertTrue(out.toString().contains("pages/s"));
+
+        String csv = new String(Files.readAllBytes(outputDir.resolve(TEST_FILENAME + ".csv")), StandardCharsets.UTF_8);
+        Assert.assertTrue(csv.startsWith("1,"));
+        Assert.assertTrue(csv.contains("Heading 1"));
+    }
+
+    @Test
+    public void shardedRunWritesSameCsvAsSingleProcess() throws Exception {
+        Path outputDir = Files.createTempDirectory("pdf-table-cli-out");
+        Path shardedDir = Files.createTempDirectory("pdf-table-cli-sharded");
+        Path queueDir = Files.createTempDirectory("pdf-table-cli-queue");
+        String pdf = getTestPDFPath().toString();
+        Assert.assertEquals(PdfTableCli.run(new String[]{"--threads", "2", pdf, outputDir.toString()}, System.out, System.err), 0);
+        Assert.assertEquals(PdfTableCli.run(new String[]{"--threads", "2", "--queue", queueDir.toString(), "--shard-pages", "4",
+                pdf, shardedDir.toString()}, System.out, System.err), 0);
+
+        Assert.assertEquals(Files.readAllBytes(shardedDir.resolve(TEST_FILENAME + ".csv")),
+                Files.readAllBytes(outputDir.resolve(TEST_FILENAME + ".csv")));
+        try (Stream<Path> files = Files.list(queueDir.resolve("tasks"))) {
+            Assert.assertEquals(files.count(), 0);
+        }
+    }
+
+    @Test
+    public void writesArrowStream() throws Exception {
+        Path outputDir = Files.createTempDirectory("pdf-table-cli-out");
+        BatchExtractor extractor = new BatchExtractor(new PdfTableSettings(), OutputFormat.ARROW, 1, null, ExecutionMode.SPLIT_IO, 2);
+        Assert.assertEquals(extractor.run(getTestPDFPath(), outputDir, false).getProcessedDocuments(), 1);
+
+        long cells;
+        try (PDDocument pdf = PDDocument.load(getTestPDFPath().toFile())) {
+            cells = new PdfTableReader().parsePdfTablePages(pdf, 1, pdf.getNumberOfPages()).stream()
+                    .flatMap(p -> p.getRows().stream()).mapToLong(r -> r.getCells().size()).sum();
+        }
+        long rows = 0;
+        try (RootAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(Files.newInputStream(outputDir.resolve(TEST_FILENAME + ".arrow")), allocator)) {
+            Assert.assertNotNull(reader.getVectorSchemaRoot().getSchema().findField("number"));
+            while (reader.loadNextBatch()) {
+                rows += reader.getVectorSchemaRoot().getRowCount();
+            }
+        }
+        Assert.assertEquals(rows, cells);
+    }
+
+    @Test
+    public void rejectsUnknownOption() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        Assert.assertEquals(PdfTableCli.run(new String[]{"--bogus"}, System.out, new PrintStream(err)), 2);
+        Assert.assertTrue(err.toString().contains("unknown option --bogus"));
+    }
+
+    @Test
+    public void parsesOptionsUnderTurkishLocale() throws Exception {
+        Path inputDir = Files.createTempDirectory("pdf-table-cli-in");
+        Path outputDir = Files.createTempDirectory("pdf-table-cli-out");
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            Assert.assertEquals(PdfTableCli.run(new String[]{"--format", "json", "--execution", "split-io",
+                    "--detection", "raster-with-text-fallback", inputDir.toString(), outputDir.toString()},
+                    new PrintStream(new ByteArrayOutputStream()), new PrintStream(err)), 0, err.toString());
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
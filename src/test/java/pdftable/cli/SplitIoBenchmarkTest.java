@@ -0,0 +1,161 @@
+package pdftable.cli;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import pdftable.PdfTableSettings;
+import pdftable.support.SyntheticPdfGenerator;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares document per thread and split I/O execution on simulated slow storage.
+ */
+public class SplitIoBenchmarkTest {
+
+    private static final int DOCUMENTS = 12;
+    private static final int CPU_THREADS = 2;
+    private static final long STORAGE_LATENCY_MILLIS = 200;
+
+    /**
+     * Storage with fixed latency of each document read and of each output commit, as e.g. network filesystem.
+     * Records maximal number of reads waiting for storage at once.
+     */
+    private static class SlowStore extends DocumentStore {
+
+        private final AtomicInteger readsInFlight = new AtomicInteger();
+        private final AtomicInteger maxReadsInFlight = new AtomicInteger();
+
+        @Override
+        PDDocument load(Path document) throws IOException {
+            read();
+            return super.load(document);
+        }
+
+        @Override
+        InputStream open(Path document) throws IOException {
+            read();
+            return super.open(document);
+        }
+
+        @Override
+        OutputStream create(Path output) throws IOException {
+            return new FilterOutputStream(super.create(output)) {
+                @Override
+                public void close() throws IOException {
+                    sleep();
+                    super.close();
+                }
+            };
+        }
+
+        int getMaxReadsInFlight() {
+            return maxReadsInFlight.get();
+        }
+
+        private void read() throws IOException {
+            maxReadsInFlight.accumulateAndGet(readsInFlight.incrementAndGet(), Math::max);
+            try {
+                sleep();
+            } finally {
+                readsInFlight.decrementAndGet();
+            }
+        }
+
+        private static void sleep() throws IOException {
+            try {
+                Thread.sleep(STORAGE_LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    private final List<Path> tempDirs = new ArrayList<>();
+
+    @AfterMethod
+    public void deleteTempDirs() throws IOException {
+        for (Path dir : tempDirs) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+        tempDirs.clear();
+    }
+
+    @Test
+    public void splitIoOverlapsStorageLatency() throws IOException {
+        Path inputDir = createTempDir("pdf-table-split-io-in");
+        try (PDDocument document = SyntheticPdfGenerator.getBuilder().setPageCount(2).setRows(8).setColumns(4).build().generate()) {
+            for (int i = 0; i < DOCUMENTS; i++) {
+                document.save(inputDir.resolve(String.format("doc_%02d.pdf", i)).toFile());
+            }
+        }
+        PdfTableSettings settings = PdfTableSettings.getBuilder().setPdfRenderingDpi(100).build();
+
+        Path perThreadDir = createTempDir("pdf-table-split-io-out");
+        Path splitIoDir = createTempDir("pdf-table-split-io-out");
+        SlowStore perThreadStore = new SlowStore();
+        SlowStore splitIoStore = new SlowStore();
+        BatchSummary perThread = new BatchExtractor(settings, OutputFormat.CSV, CPU_THREADS, null,
+                ExecutionMode.DOCUMENT_PER_THREAD, BatchExtractor.DEFAULT_IO_PARALLELISM, perThreadStore).run(inputDir, perThreadDir, false);
+        BatchExtractor splitIo = new BatchExtractor(settings, OutputFormat.CSV, CPU_THREADS, null,
+                ExecutionMode.SPLIT_IO, BatchExtractor.DEFAULT_IO_PARALLELISM, splitIoStore);
+        BatchSummary split = splitIo.run(inputDir, splitIoDir, false);
+
+        System.out.println(String.format("slow storage, %d threads: document per thread %.2f s (%.2f docs/s), "
+                        + "split I/O %.2f s (%.2f docs/s)", CPU_THREADS,
+                perThread.getElapsedSeconds(), perThread.getDocumentsPerSecond(),
+                split.getElapsedSeconds(), split.getDocumentsPerSecond()));
+
+        Assert.assertEquals(split.getProcessedDocuments(), DOCUMENTS);
+        Assert.assertEquals(split.getPages(), perThread.getPages());
+        for (int i = 0; i < DOCUMENTS; i++) {
+            String name = String.format("doc_%02d.pdf.csv", i);
+            Assert.assertTrue(Arrays.equals(Files.readAllBytes(splitIoDir.resolve(name)), Files.readAllBytes(perThreadDir.resolve(name))), name);
+        }
+        // document per thread waits for storage on each of its threads, split I/O waits for more reads at once
+        Assert.assertTrue(perThreadStore.getMaxReadsInFlight() <= CPU_THREADS, "document per thread " + perThreadStore.getMaxReadsInFlight());
+        Assert.assertTrue(splitIoStore.getMaxReadsInFlight() > CPU_THREADS, "split I/O " + splitIoStore.getMaxReadsInFlight());
+
+        // completed documents are recorded in manifest as in document per thread mode
+        Assert.assertEquals(splitIo.run(inputDir, splitIoDir, false).getSkippedDocuments(), DOCUMENTS);
+    }
+
+    @Test
+    public void splitIoReportsFailedDocuments() throws IOException {
+        Path inputDir = createTempDir("pdf-table-split-io-in");
+        Files.write(inputDir.resolve("broken.pdf"), new byte[]{1, 2, 3});
+        try (PDDocument document = SyntheticPdfGenerator.getBuilder().setPageCount(1).build().generate()) {
+            document.save(inputDir.resolve("valid.pdf").toFile());
+        }
+        BatchSummary summary = new BatchExtractor(PdfTableSettings.getBuilder().setPdfRenderingDpi(100).build(), OutputFormat.CSV,
+                CPU_THREADS, null, ExecutionMode.SPLIT_IO, BatchExtractor.DEFAULT_IO_PARALLELISM, DocumentStore.FILE_SYSTEM)
+                .run(inputDir, createTempDir("pdf-table-split-io-out"), false);
+        Assert.assertEquals(summary.getProcessedDocuments(), 1);
+        Assert.assertEquals(summary.getFailedDocuments(), 1);
+    }
+
+    private Path createTempDir(String prefix) throws IOException {
+        Path dir = Files.createTempDirectory(prefix);
+        tempDirs.add(dir);
+        return dir;
+    }
+}
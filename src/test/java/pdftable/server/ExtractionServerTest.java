@@ -0,0 +1,130 @@
+package pdftable.server;
+
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+
+public class ExtractionServerTest {
+
+    private static final String TEST_FILENAME = "test_tables.pdf";
+
+    @SuppressWarnings("ConstantConditions")
+    private byte[] getTestPDFBytes() throws Exception {
+        return Files.readAllBytes(Paths.get(getClass().getClassLoader().getResource(TEST_FILENAME).toURI()));
+    }
+
+    private static HttpURLConnection post(int port, String query, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/extract" + query).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream os = connection.getOutputStream()) {
+            os.write(body);
+        }
+        return connection;
+    }
+
+    private static List<String> readLines(InputStream in) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void extractStreamsPagesAsNdjson() throws Exception {
+        ExtractionServerSettings settings = ExtractionServerSettings.getBuilder().setPort(0).build();
+        try (ExtractionServer server = new ExtractionServer(settings)) {
+            server.start();
+
+            HttpURLConnection connection = post(server.getPort(), "?startPage=1&endPage=4", getTestPDFBytes());
+            Assert.assertEquals(connection.getResponseCode(), 200);
+            List<String> lines = readLines(connection.getInputStream());
+            Assert.assertEquals(lines.size(), 4);
+            Assert.assertTrue(lines.get(0).startsWith("{\"page\":1,"));
+            Assert.assertTrue(lines.get(0).contains("Heading 1"));
+            Assert.assertTrue(lines.get(3).startsWith("{\"page\":4,"));
+
+            HttpURLConnection metrics = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/metrics").openConnection();
+            String metricsJson = String.join("", readLines(metrics.getInputStream()));
+            Assert.assertTrue(metricsJson.contains("\"pages\":4"));
+            Assert.assertTrue(metricsJson.contains("\"page\":{\"count\":4"));
+        }
+    }
+
+    @Test
+    public void extractRejectsTooManyPages() throws Exception {
+        ExtractionServerSettings settings = ExtractionServerSettings.getBuilder().setPort(0).setMaxPagesPerRequest(2).build();
+        try (ExtractionServer server = new ExtractionServer(settings)) {
+            server.start();
+            Assert.assertEquals(post(server.getPort(), "", getTestPDFBytes()).getResponseCode(), 413);
+            HttpURLConnection connection = post(server.getPort(), "?startPage=3&endPage=4", getTestPDFBytes());
+            Assert.assertEquals(connection.getResponseCode(), 200);
+            readLines(connection.getInputStream());
+            Assert.assertEquals(post(server.getPort(), "?startPage=3&endPage=4&dpi=0", getTestPDFBytes()).getResponseCode(), 400);
+
+            // refused requests are counted separately from completed extractions
+            while (server.getInFlightRequests() > 0) {
+                Thread.sleep(5);
+            }
+            HttpURLConnection metrics = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/metrics").openConnection();
+            String metricsJson = String.join("", readLines(metrics.getInputStream()));
+            Assert.assertTrue(metricsJson.contains("\"invalid\":2"), metricsJson);
+            Assert.assertTrue(metricsJson.contains("\"completed\":1"), metricsJson);
+        }
+    }
+
+    @Test
+    public void extractAppliesDpiOverride() throws Exception {
+        ExtractionServerSettings settings = ExtractionServerSettings.getBuilder().setPort(0).build();
+        try (ExtractionServer server = new ExtractionServer(settings)) {
+            server.start();
+            HttpURLConnection connection = post(server.getPort(), "?startPage=1&endPage=1&dpi=150", getTestPDFBytes());
+            Assert.assertEquals(connection.getResponseCode(), 200);
+            Assert.assertTrue(readLines(connection.getInputStream()).get(0).contains("Heading 1"));
+            Assert.assertEquals(post(server.getPort(), "?dpi=0", getTestPDFBytes()).getResponseCode(), 400);
+        }
+    }
+
+    @Test
+    public void extractRejectsWhenQueueIsFull() throws Exception {
+        ExtractionServerSettings settings = ExtractionServerSettings.getBuilder()
+                .setPort(0)
+                .setWorkerThreads(1)
+                .setQueueCapacity(0)
+                .build();
+        byte[] pdf = getTestPDFBytes();
+        ExecutorService client = Executors.newSingleThreadExecutor();
+        try (ExtractionServer server = new ExtractionServer(settings)) {
+            server.start();
+            Future<Integer> first = client.submit(() -> {
+                HttpURLConnection connection = post(server.getPort(), "", pdf);
+                readLines(connection.getInputStream());
+                return connection.getResponseCode();
+            });
+            while (server.getInFlightRequests() == 0) {
+                Thread.sleep(5);
+            }
+            Assert.assertEquals(post(server.getPort(), "", pdf).getResponseCode(), 429);
+            Assert.assertEquals((int) first.get(), 200);
+        } finally {
+            client.shutdown();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package pdftable.shard;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import pdftable.PdfTableReader;
+import pdftable.models.ParsedTablePage;
+import pdftable.support.GoldenOutput;
+import pdftable.support.SyntheticPdfGenerator;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ShardedExtractionTest {
+
+    private static final String TEST_FILENAME = "test_tables.pdf";
+
+    private static final ShardSettings FAST_EXPIRY = ShardSettings.getBuilder()
+            .setPagesPerShard(2)
+            .setLeaseTimeoutMillis(2000)
+            .setHeartbeatIntervalMillis(300)
+            .setPollIntervalMillis(100)
+            .build();
+
+    /**
+     * Entry point of worker JVM.
+     *
+     * @param args queue directory and worker id
+     */
+    public static void main(String[] args) throws IOException {
+        ShardWorker worker = new ShardWorker(new ShardQueue(Paths.get(args[0])), new PdfTableReader(), FAST_EXPIRY, args[1], 1, System.out);
+        System.out.println("completed " + worker.run());
+    }
+
+    @Test
+    public void leaseIsExclusiveUntilExpired() throws IOException {
+        Path dir = Files.createTempDirectory("pdf-table-lease");
+        Path path = dir.resolve("shard.lease");
+        try {
+            ShardLease first = ShardLease.tryAcquire(path, "first", 1000);
+            Assert.assertNotNull(first);
+            Assert.assertFalse(first.isReclaimed());
+            Assert.assertNull(ShardLease.tryAcquire(path, "second", 1000));
+            Assert.assertTrue(first.heartbeat());
+
+            // owner stopped sending heartbeats
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() - 5000));
+            ShardLease second = ShardLease.tryAcquire(path, "second", 1000);
+            Assert.assertNotNull(second);
+            Assert.assertTrue(second.isReclaimed());
+            Assert.assertFalse(first.heartbeat());
+            Assert.assertTrue(first.isLost());
+
+            // lost lease must not release lease of new owner
+            first.close();
+            Assert.assertTrue(Files.exists(path));
+            second.close();
+            Assert.assertFalse(Files.exists(path));
+            Assert.assertNotNull(ShardLease.tryAcquire(path, "third", 1000));
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    @Test
+    public void mergedShardsEqualSingleProcessOutput() throws IOException {
+        Path pdf = getTestFile();
+        Path dir = Files.createTempDirectory("pdf-table-queue");
+        try {
+            ShardQueue queue = new ShardQueue(dir);
+            PdfTableReader reader = new PdfTableReader();
+            ShardSettings settings = ShardSettings.getBuilder().setPagesPerShard(5).build();
+            ShardCoordinator coordinator = new ShardCoordinator(queue, reader.getSettings(), settings);
+
+            String jobId = coordinator.submit(pdf);
+            Assert.assertEquals(coordinator.submit(pdf), jobId);
+            Assert.assertFalse(coordinator.isComplete(jobId));
+            int shards = queue.listTasks(jobId).size();
+            Assert.assertEquals(new ShardWorker(queue, reader, settings, "worker", 3, null).run(), shards);
+            Assert.assertTrue(coordinator.isComplete(jobId));
+
+            List<ParsedTablePage> merged = new ArrayList<>();
+            coordinator.merge(jobId, merged::add);
+            assertEqualsSingleProcess(pdf, reader, merged);
+
+            coordinator.remove(jobId);
+            Assert.assertTrue(queue.listTasks().isEmpty());
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    @Test
+    public void interruptedSubmissionIsCompleted() throws IOException {
+        Path pdf = getTestFile();
+        Path dir = Files.createTempDirectory("pdf-table-queue");
+        try {
+            ShardQueue queue = new ShardQueue(dir);
+            PdfTableReader reader = new PdfTableReader();
+            ShardSettings settings = ShardSettings.getBuilder().setPagesPerShard(2).build();
+            ShardCoordinator coordinator = new ShardCoordinator(queue, reader.getSettings(), settings);
+            String jobId = coordinator.submit(pdf);
+            List<ShardTask> tasks = queue.listTasks(jobId);
+            Assert.assertTrue(tasks.size() > 2);
+            int pageCount = queue.readJobPageCount(jobId);
+
+            // coordinator crashed after adding some of the shards
+            queue.removeJob(jobId);
+            queue.remove(tasks.get(1).getId());
+            Assert.expectThrows(IOException.class, () -> coordinator.isComplete(jobId));
+            Assert.expectThrows(IOException.class, () -> coordinator.merge(jobId, page -> {
+            }));
+            // shards with gap never pass as complete job
+            queue.writeJob(jobId, pageCount);
+            Assert.expectThrows(IOException.class, () -> coordinator.isComplete(jobId));
+            queue.removeJob(jobId);
+
+            Assert.assertEquals(coordinator.submit(pdf), jobId);
+            Assert.assertEquals(queue.listTasks(jobId).size(), tasks.size());
+            new ShardWorker(queue, reader, settings, "worker", 2, null).run();
+            Assert.assertTrue(coordinator.isComplete(jobId));
+            List<ParsedTablePage> merged = new ArrayList<>();
+            Assert.assertEquals(coordinator.merge(jobId, merged::add), pageCount);
+            assertEqualsSingleProcess(pdf, reader, merged);
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    @Test
+    public void failedShardsAreRetried() throws IOException {
+        Path dir = Files.createTempDirectory("pdf-table-queue");
+        try {
+            Path pdf = dir.resolve("copy.pdf");
+            byte[] content = Files.readAllBytes(getTestFile());
+            Files.write(pdf, content);
+            FileTime modified = Files.getLastModifiedTime(pdf);
+            ShardQueue queue = new ShardQueue(dir.resolve("queue"));
+            PdfTableReader reader = new PdfTableReader();
+            ShardSettings settings = ShardSettings.getBuilder().setPagesPerShard(100).setMaxAttempts(2).setPollIntervalMillis(10).build();
+            ShardCoordinator coordinator = new ShardCoordinator(queue, reader.getSettings(), settings);
+            String jobId = coordinator.submit(pdf);
+
+            // document unreadable for workers, e.g. storage failure
+            Files.write(pdf, new byte[content.length]);
+            ByteArrayOutputStream log = new ByteArrayOutputStream();
+            Assert.assertEquals(new ShardWorker(queue, reader, settings, "worker", 1, new PrintStream(log, true)).run(), 0);
+            Assert.assertTrue(log.toString().contains("retrying"), log.toString());
+            Assert.assertTrue(coordinator.isComplete(jobId));
+            Assert.expectThrows(IOException.class, () -> coordinator.merge(jobId, page -> {
+            }));
+
+            // unchanged document submitted again retries failed shards
+            Files.write(pdf, content);
+            Files.setLastModifiedTime(pdf, modified);
+            Assert.assertEquals(coordinator.submit(pdf), jobId);
+            Assert.assertFalse(coordinator.isComplete(jobId));
+            Assert.assertEquals(new ShardWorker(queue, reader, settings, "worker", 1, null).run(), 1);
+            List<ParsedTablePage> merged = new ArrayList<>();
+            coordinator.merge(jobId, merged::add);
+            assertEqualsSingleProcess(pdf, reader, merged);
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    @Test
+    public void shardOfKilledWorkerIsReclaimed() throws Exception {
+        Path dir = Files.createTempDirectory("pdf-table-queue");
+        Path pdf = dir.resolve("synthetic.pdf");
+        try (PDDocument document = SyntheticPdfGenerator.getBuilder().setPageCount(20).setRows(8).setColumns(4).build().generate()) {
+            document.save(pdf.toFile());
+        }
+        try {
+            Path queueDir = dir.resolve("queue");
+            ShardQueue queue = new ShardQueue(queueDir);
+            PdfTableReader reader = new PdfTableReader();
+            ShardCoordinator coordinator = new ShardCoordinator(queue, reader.getSettings(), FAST_EXPIRY);
+            String jobId = coordinator.submit(pdf);
+
+            // first worker is killed while holding lease, so that its shard is left behind with stale lease
+            Process crashed = startWorker(queueDir, "worker-0");
+            Path orphaned = awaitLease(queueDir.resolve("leases"), "worker-0", crashed);
+            crashed.destroyForcibly().waitFor();
+            String orphanedShard = orphaned.getFileName().toString().replace(".lease", "");
+            // killed worker may have stored result just before its lease was observed, then nothing is left to reclaim
+            boolean completedBeforeKill = queue.isDone(orphanedShard);
+
+            List<Process> workers = new ArrayList<>();
+            for (int i = 1; i <= 2; i++) {
+                workers.add(startWorker(queueDir, "worker-" + i));
+            }
+            StringBuilder output = new StringBuilder();
+            for (Process worker : workers) {
+                output.append(readOutput(worker));
+                Assert.assertTrue(worker.waitFor(2, TimeUnit.MINUTES));
+                Assert.assertEquals(worker.exitValue(), 0, output.toString());
+            }
+            if (!completedBeforeKill) {
+                Assert.assertTrue(output.toString().contains("reclaimed " + orphanedShard), output.toString());
+            }
+
+            Assert.assertTrue(coordinator.isComplete(jobId));
+            List<ParsedTablePage> merged = new ArrayList<>();
+            Assert.assertEquals(coordinator.merge(jobId, merged::add), 20);
+            assertEqualsSingleProcess(pdf, reader, merged);
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    private static void assertEqualsSingleProcess(Path pdf, PdfTableReader reader, List<ParsedTablePage> merged) throws IOException {
+        List<ParsedTablePage> expected;
+        try (PDDocument document = PDDocument.load(pdf.toFile())) {
+            expected = reader.parsePdfTablePages(document, 1, document.getNumberOfPages());
+        }
+        Assert.assertEquals(merged.size(), expected.size());
+        Assert.assertEquals(GoldenOutput.of(expected).diff(GoldenOutput.of(merged)), Collections.emptyList());
+    }
+
+    private static Process startWorker(Path queueDir, String workerId) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardedExtractionTest.class.getName());
+        command.add(queueDir.toString());
+        command.add(workerId);
+        return new ProcessBuilder(command).redirectErrorStream(true).start();
+    }
+
+    private static Path awaitLease(Path leasesDir, String workerId, Process worker) throws Exception {
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        while (System.currentTimeMillis() < deadline && worker.isAlive()) {
+            try (Stream<Path> files = Files.list(leasesDir)) {
+                for (Path path : files.filter(p -> p.toString().endsWith(".lease")).collect(Collectors.toList())) {
+                    Optional<String> owner;
+                    try {
+                        owner = Files.readAllLines(path, StandardCharsets.UTF_8).stream().findFirst();
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (owner.isPresent() && owner.get().equals(workerId)) {
+                        return path;
+                    }
+                }
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError(workerId + " did not lease any shard: " + readOutput(worker));
+    }
+
+    private static String readOutput(Process process) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                sb.append(line).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private Path getTestFile() {
+        return new File(getClass().getClassLoader().getResource(TEST_FILENAME).getFile()).toPath();
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Collections.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
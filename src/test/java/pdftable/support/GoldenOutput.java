@@ -0,0 +1,124 @@
+package pdftable.support;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import pdftable.models.ParsedTablePage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Golden extraction output of single document, stored as plain text so that changes are readable in diffs:
+ * <pre>
+ * # page 1 tables=14x6
+ * cell\tcell\tcell
+ * </pre>
+ * One line per row, cells separated by tab and Java-escaped (so that whitespace differences stay visible).
+ */
+public class GoldenOutput {
+
+    private static final String PAGE_PREFIX = "# page ";
+    private static final String TABLES_PREFIX = " tables=";
+
+    private final List<String> pageHeaders = new ArrayList<>();
+    private final List<List<List<String>>> pages = new ArrayList<>();
+
+    private GoldenOutput() {
+    }
+
+    public static GoldenOutput of(List<ParsedTablePage> parsedPages) {
+        GoldenOutput out = new GoldenOutput();
+        for (ParsedTablePage page : parsedPages) {
+            String tables = page.getTables().stream()
+                    .map(t -> t.getGridRowCount() + "x" + t.getGridColumnCount())
+                    .collect(Collectors.joining(","));
+            out.pageHeaders.add(PAGE_PREFIX + page.getPageNum() + TABLES_PREFIX + tables);
+            List<List<String>> rows = new ArrayList<>();
+            for (ParsedTablePage.ParsedTableRow row : page.getRows()) {
+                rows.add(new ArrayList<>(row.getCells()));
+            }
+            out.pages.add(rows);
+        }
+        return out;
+    }
+
+    public static GoldenOutput read(Path path) throws IOException {
+        GoldenOutput out = new GoldenOutput();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(PAGE_PREFIX)) {
+                    out.pageHeaders.add(line);
+                    out.pages.add(new ArrayList<>());
+                } else if (!out.pages.isEmpty()) {
+                    List<String> cells = new ArrayList<>();
+                    for (String cell : line.split("\t", -1)) {
+                        cells.add(StringEscapeUtils.unescapeJava(cell));
+                    }
+                    out.pages.get(out.pages.size() - 1).add(cells);
+                }
+            }
+        }
+        return out;
+    }
+
+    public void write(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int p = 0; p < pages.size(); p++) {
+                writer.write(pageHeaders.get(p));
+                writer.newLine();
+                for (List<String> row : pages.get(p)) {
+                    writer.write(row.stream().map(StringEscapeUtils::escapeJava).collect(Collectors.joining("\t")));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares this (expected) output with actual output cell by cell.
+     *
+     * @param actual actual output
+     * @return human readable differences, empty when outputs are equal
+     */
+    public List<String> diff(GoldenOutput actual) {
+        List<String> out = new ArrayList<>();
+        if (pages.size() != actual.pages.size()) {
+            out.add("page count: expected " + pages.size() + " but was " + actual.pages.size());
+        }
+        for (int p = 0; p < Math.min(pages.size(), actual.pages.size()); p++) {
+            if (!pageHeaders.get(p).equals(actual.pageHeaders.get(p))) {
+                out.add("expected '" + pageHeaders.get(p) + "' but was '" + actual.pageHeaders.get(p) + "'");
+            }
+            List<List<String>> expectedRows = pages.get(p);
+            List<List<String>> actualRows = actual.pages.get(p);
+            String page = "page " + (p + 1);
+            if (expectedRows.size() != actualRows.size()) {
+                out.add(page + ": expected " + expectedRows.size() + " rows but was " + actualRows.size());
+            }
+            for (int r = 0; r < Math.max(expectedRows.size(), actualRows.size()); r++) {
+                List<String> expectedRow = r < expectedRows.size() ? expectedRows.get(r) : new ArrayList<>();
+                List<String> actualRow = r < actualRows.size() ? actualRows.get(r) : new ArrayList<>();
+                for (int c = 0; c < Math.max(expectedRow.size(), actualRow.size()); c++) {
+                    String expectedCell = c < expectedRow.size() ? quote(expectedRow.get(c)) : "<missing>";
+                    String actualCell = c < actualRow.size() ? quote(actualRow.get(c)) : "<missing>";
+                    if (!expectedCell.equals(actualCell)) {
+                        out.add(page + " row " + r + " cell " + c + ": expected " + expectedCell + " but was " + actualCell);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    private static String quote(String cell) {
+        return '"' + StringEscapeUtils.escapeJava(cell) + '"';
+    }
+}
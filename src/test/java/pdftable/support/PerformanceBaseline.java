@@ -0,0 +1,76 @@
+package pdftable.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Checked-in per-document performance baseline: throughput (pages per second) and memory
+ * (bytes allocated per page). Measurements are compared with baseline using relative tolerance.
+ */
+public class PerformanceBaseline {
+
+    private static final String PAGES_PER_SECOND = ".pagesPerSecond";
+    private static final String ALLOCATED_BYTES_PER_PAGE = ".allocatedBytesPerPage";
+
+    private final Properties properties = new Properties();
+
+    public static PerformanceBaseline load(Path path) throws IOException {
+        PerformanceBaseline baseline = new PerformanceBaseline();
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                baseline.properties.load(in);
+            }
+        }
+        return baseline;
+    }
+
+    public void save(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        // sorted keys keep file diffs small
+        List<String> lines = new ArrayList<>();
+        lines.add("# pdf-table performance baseline, regenerate with -Dpdftable.golden.update=true");
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            lines.add(key + "=" + properties.getProperty(key));
+        }
+        Files.write(path, lines, StandardCharsets.ISO_8859_1);
+    }
+
+    public void put(String document, double pagesPerSecond, long allocatedBytesPerPage) {
+        properties.setProperty(document + PAGES_PER_SECOND, String.format(Locale.ROOT, "%.2f", pagesPerSecond));
+        properties.setProperty(document + ALLOCATED_BYTES_PER_PAGE, Long.toString(allocatedBytesPerPage));
+    }
+
+    /**
+     * Compares measurement with baseline. Documents missing in baseline are not checked.
+     *
+     * @param document              document name
+     * @param pagesPerSecond        measured throughput
+     * @param allocatedBytesPerPage measured allocation, negative when not available
+     * @param tolerance             allowed relative regression, e.g. 0.5 allows half of baseline throughput
+     *                              and one and a half of baseline allocation
+     * @return regressions, empty when measurement is within tolerance
+     */
+    public List<String> check(String document, double pagesPerSecond, long allocatedBytesPerPage, double tolerance) {
+        List<String> out = new ArrayList<>();
+        String baseThroughput = properties.getProperty(document + PAGES_PER_SECOND);
+        if (baseThroughput != null && pagesPerSecond < Double.parseDouble(baseThroughput) * (1 - tolerance)) {
+            out.add(String.format(Locale.ROOT, "%s: throughput %.2f pages/s, baseline %s pages/s",
+                    document, pagesPerSecond, baseThroughput));
+        }
+        String baseAllocation = properties.getProperty(document + ALLOCATED_BYTES_PER_PAGE);
+        if (baseAllocation != null && allocatedBytesPerPage >= 0
+                && allocatedBytesPerPage > Long.parseLong(baseAllocation) * (1 + tolerance)) {
+            out.add(String.format(Locale.ROOT, "%s: allocated %d bytes/page, baseline %s bytes/page",
+                    document, allocatedBytesPerPage, baseAllocation));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,292 @@
+package pdftable.support;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates deterministic PDF documents with one table grid per page, together with expected cell texts.
+ * <p>
+ * Each cell contains text "page.row.column" (1-based page, 0-based row and column). In every n-th row
+ * (see {@link SyntheticPdfGeneratorBuilder#setMergeEveryNthRow(int)}) first two cells are merged into one
+ * cell spanning two columns, which keeps text of the first one.
+ */
+public class SyntheticPdfGenerator {
+
+    /**
+     * How cell borders are drawn.
+     */
+    public enum BorderStyle {
+        /**
+         * stroked vector lines
+         */
+        LINES,
+        /**
+         * thin filled rectangles, as produced by many report generators
+         */
+        FILLED_RECTS,
+        /**
+         * no borders, cells are defined by text alignment only
+         */
+        NONE
+    }
+
+    public static class SyntheticPdfGeneratorBuilder {
+
+        // --------------
+        // DEFAULT VALUES
+        // --------------
+
+        // DOCUMENT SETTINGS
+        private int pageCount = 1;
+        private PDRectangle pageSize = PDRectangle.A4;
+
+        // GRID SETTINGS
+        private int rows = 10;
+        private int columns = 5;
+        private int mergeEveryNthRow = 0;
+        private float margin = 36;
+
+        // STYLE SETTINGS
+        private BorderStyle borderStyle = BorderStyle.LINES;
+        private float lineWidth = 1;
+        private PDFont font = PDType1Font.HELVETICA;
+        private float fontSize = 8;
+
+        public SyntheticPdfGeneratorBuilder setPageCount(int pageCount) {
+            this.pageCount = pageCount;
+            return this;
+        }
+
+        public SyntheticPdfGeneratorBuilder setPageSize(PDRectangle pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public SyntheticPdfGeneratorBuilder setRows(int rows) {
+            this.rows = rows;
+            return this;
+        }
+
+        public SyntheticPdfGeneratorBuilder setColumns(int columns) {
+            this.columns = columns;
+            return this;
+        }
+
+        /**
+         * @param mergeEveryNthRow merge first two cells of every n-th row, 0 disables merging
+         */
+        public SyntheticPdfGeneratorBuilder setMergeEveryNthRow(int mergeEveryNthRow) {
+            this.mergeEveryNthRow = mergeEveryNthRow;
+            return this;
+        }
+
+        public SyntheticPdfGeneratorBuilder setMargin(float margin) {
+            this.margin = margin;
+            return this;
+        }
+
+        public SyntheticPdfGeneratorBuilder setBorderStyle(BorderStyle borderStyle) {
+            this.borderStyle = borderStyle;
+            return this;
+        }
+
+        public SyntheticPdfGeneratorBuilder setLineWidth(float lineWidth) {
+            this.lineWidth = lineWidth;
+            return this;
+        }
+
+        public SyntheticPdfGeneratorBuilder setFont(PDFont font) {
+            this.font = font;
+            return this;
+        }
+
+        /**
+         * @param fontSize maximal font size, text is shrunk when it does not fit into cell
+         */
+        public SyntheticPdfGeneratorBuilder setFontSize(float fontSize) {
+            this.fontSize = fontSize;
+            return this;
+        }
+
+        public SyntheticPdfGenerator build() {
+            return new SyntheticPdfGenerator(this);
+        }
+    }
+
+    public static SyntheticPdfGeneratorBuilder getBuilder() {
+        return new SyntheticPdfGeneratorBuilder();
+    }
+
+    private final int pageCount;
+    private final PDRectangle pageSize;
+    private final int rows;
+    private final int columns;
+    private final int mergeEveryNthRow;
+    private final float margin;
+    private final BorderStyle borderStyle;
+    private final float lineWidth;
+    private final PDFont font;
+    private final float fontSize;
+
+    // grid geometry, same for each page
+    private final float cellWidth;
+    private final float cellHeight;
+
+    private SyntheticPdfGenerator(SyntheticPdfGeneratorBuilder builder) {
+        this.pageCount = builder.pageCount;
+        this.pageSize = builder.pageSize;
+        this.rows = builder.rows;
+        this.columns = builder.columns;
+        this.mergeEveryNthRow = builder.mergeEveryNthRow;
+        this.margin = builder.margin;
+        this.borderStyle = builder.borderStyle;
+        this.lineWidth = builder.lineWidth;
+        this.font = builder.font;
+        this.fontSize = builder.fontSize;
+
+        this.cellWidth = (pageSize.getWidth() - 2 * margin) / columns;
+        this.cellHeight = Math.min(fontSize * 2.5f, (pageSize.getHeight() - 2 * margin) / rows);
+        if (columns < 2 && mergeEveryNthRow > 0) {
+            throw new IllegalArgumentException("Merged cells require at least 2 columns");
+        }
+    }
+
+    /**
+     * Generates document in memory. Caller is responsible for closing it.
+     *
+     * @return generated document
+     * @throws IOException
+     */
+    public PDDocument generate() throws IOException {
+        PDDocument document = new PDDocument();
+        for (int page = 1; page <= pageCount; page++) {
+            PDPage pdPage = new PDPage(pageSize);
+            document.addPage(pdPage);
+            try (PDPageContentStream content = new PDPageContentStream(document, pdPage)) {
+                drawBorders(content);
+                drawTexts(content, page);
+            }
+        }
+        return document;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public int getCellCount() {
+        return getExpectedRows(1).stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * @param page page number (first page == 1)
+     * @return expected cell texts of page, row by row top to bottom
+     */
+    public List<List<String>> getExpectedRows(int page) {
+        List<List<String>> out = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            List<String> cells = new ArrayList<>(columns);
+            for (int col = 0; col < columns; col++) {
+                if (col == 1 && isMergedRow(row)) {
+                    continue;
+                }
+                cells.add(getCellText(page, row, col));
+            }
+            out.add(cells);
+        }
+        return out;
+    }
+
+    /**
+     * @return true when first two cells of row are merged
+     */
+    public boolean isMergedRow(int row) {
+        return mergeEveryNthRow > 0 && row % mergeEveryNthRow == mergeEveryNthRow - 1;
+    }
+
+    private static String getCellText(int page, int row, int col) {
+        return page + "." + row + "." + col;
+    }
+
+    private float getTop() {
+        return pageSize.getUpperRightY() - margin;
+    }
+
+    private void drawBorders(PDPageContentStream content) throws IOException {
+        if (borderStyle == BorderStyle.NONE) {
+            return;
+        }
+        float left = margin;
+        float right = margin + columns * cellWidth;
+        float top = getTop();
+
+        for (int row = 0; row <= rows; row++) {
+            float y = top - row * cellHeight;
+            drawLine(content, left, y, right, y);
+        }
+        for (int row = 0; row < rows; row++) {
+            float y = top - row * cellHeight;
+            for (int col = 0; col <= columns; col++) {
+                if (col == 1 && isMergedRow(row)) {
+                    continue;
+                }
+                float x = left + col * cellWidth;
+                drawLine(content, x, y, x, y - cellHeight);
+            }
+        }
+        if (borderStyle == BorderStyle.LINES) {
+            content.setLineWidth(lineWidth);
+            content.stroke();
+        } else {
+            content.fill();
+        }
+    }
+
+    private void drawLine(PDPageContentStream content, float x1, float y1, float x2, float y2) throws IOException {
+        if (borderStyle == BorderStyle.LINES) {
+            content.moveTo(x1, y1);
+            content.lineTo(x2, y2);
+        } else {
+            float half = lineWidth / 2;
+            content.addRect(Math.min(x1, x2) - half, Math.min(y1, y2) - half,
+                    Math.abs(x2 - x1) + lineWidth, Math.abs(y2 - y1) + lineWidth);
+        }
+    }
+
+    private void drawTexts(PDPageContentStream content, int page) throws IOException {
+        float top = getTop();
+        content.beginText();
+        float currentSize = -1;
+        float lastX = 0;
+        float lastY = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                if (col == 1 && isMergedRow(row)) {
+                    continue;
+                }
+                String text = getCellText(page, row, col);
+                float width = font.getStringWidth(text) / 1000;
+                float size = Math.min(fontSize, Math.min(cellWidth * 0.8f / width, cellHeight * 0.6f));
+                if (size != currentSize) {
+                    content.setFont(font, size);
+                    currentSize = size;
+                }
+                float x = margin + col * cellWidth + cellWidth * 0.1f;
+                float y = top - (row + 1) * cellHeight + (cellHeight - size * 0.7f) / 2;
+                content.newLineAtOffset(x - lastX, y - lastY);
+                lastX = x;
+                lastY = y;
+                content.showText(text);
+            }
+        }
+        content.endText();
+    }
+}
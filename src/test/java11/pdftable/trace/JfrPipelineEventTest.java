@@ -0,0 +1,62 @@
+package pdftable.trace;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import pdftable.PdfTableReader;
+import pdftable.models.ParsedTablePage;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public class JfrPipelineEventTest {
+
+    private static final String EVENT_NAME = "pdftable.PipelineStage";
+
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    public void emitsEventForEachRasterStage() throws Exception {
+        Assert.assertTrue(PipelineEvents.isFlightRecorderAvailable());
+
+        File file = new File(getClass().getClassLoader().getResource("test_tables.pdf").getFile());
+        Path dump = Files.createTempFile("pdf-table", ".jfr");
+        try (PDDocument document = PDDocument.load(file); Recording recording = new Recording()) {
+            recording.enable(EVENT_NAME).withoutThreshold();
+            recording.start();
+            ParsedTablePage page = new PdfTableReader().parsePdfTablePage(document, 1);
+            recording.stop();
+            recording.dump(dump);
+
+            int cellCount = page.getRows().stream().mapToInt(r -> r.getCells().size()).sum();
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            Set<Stage> stages = EnumSet.noneOf(Stage.class);
+            for (RecordedEvent event : events) {
+                if (!EVENT_NAME.equals(event.getEventType().getName())) {
+                    continue;
+                }
+                Stage stage = Stage.valueOf(event.getString("stage"));
+                stages.add(stage);
+                Assert.assertEquals(event.getInt("pageNumber"), 1);
+                if (stage == Stage.RENDER) {
+                    Assert.assertEquals(event.getInt("dpi"), 120);
+                    Assert.assertTrue(event.getInt("imageWidth") > 0);
+                } else if (stage == Stage.CONTOURS2) {
+                    Assert.assertTrue(event.getInt("contourCount") > 0);
+                } else if (stage == Stage.TEXT_EXTRACTION) {
+                    Assert.assertEquals(event.getInt("cellCount"), cellCount);
+                }
+            }
+            // text layout is analyzed only by text alignment engine
+            Assert.assertEquals(stages, EnumSet.complementOf(EnumSet.of(Stage.TEXT_LAYOUT)));
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+}